@@ -0,0 +1,122 @@
+package com.example.benchmarks;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import dagger.reflect.DaggerReflect;
+import java.lang.annotation.Retention;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating a request subcomponent and resolving a binding which depends on one from the
+ * root component. The request is created either directly below the root or below three more scoped
+ * subcomponents. The two should take about the same time, since ancestor lookups are remembered by
+ * scopes with children rather than repeated for each new request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepScopeChainBenchmark {
+  private AppComponent app;
+  private ScreenComponent screen;
+
+  @Setup
+  public void setUp() {
+    app = DaggerReflect.create(AppComponent.class);
+    screen = app.user().session().screen();
+    // Link the bindings which each request shares through its ancestors.
+    app.request().handler();
+    screen.request().handler();
+  }
+
+  @Benchmark
+  public Object shallow() {
+    return app.request().handler();
+  }
+
+  @Benchmark
+  public Object deep() {
+    return screen.request().handler();
+  }
+
+  @Retention(RUNTIME)
+  @javax.inject.Scope
+  public @interface UserScope {}
+
+  @Retention(RUNTIME)
+  @javax.inject.Scope
+  public @interface SessionScope {}
+
+  @Retention(RUNTIME)
+  @javax.inject.Scope
+  public @interface ScreenScope {}
+
+  @Singleton
+  @Component(modules = AppModule.class)
+  public interface AppComponent {
+    UserComponent user();
+
+    RequestComponent request();
+  }
+
+  @UserScope
+  @Subcomponent
+  public interface UserComponent {
+    SessionComponent session();
+  }
+
+  @SessionScope
+  @Subcomponent
+  public interface SessionComponent {
+    ScreenComponent screen();
+  }
+
+  @ScreenScope
+  @Subcomponent
+  public interface ScreenComponent {
+    RequestComponent request();
+  }
+
+  @Subcomponent
+  public interface RequestComponent {
+    Handler handler();
+  }
+
+  @Module
+  abstract static class AppModule {
+    @Provides
+    @Singleton
+    static Service service() {
+      return new Service();
+    }
+  }
+
+  public static final class Service {}
+
+  public static final class Handler {
+    final Service service;
+
+    @Inject
+    Handler(Service service) {
+      this.service = service;
+    }
+  }
+}
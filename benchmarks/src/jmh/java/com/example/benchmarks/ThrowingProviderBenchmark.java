@@ -0,0 +1,88 @@
+package com.example.benchmarks;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.reflect.DaggerReflect;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calling a provision method whose {@code @Provides} method succeeds or throws, for each
+ * invocation strategy. The difference between the two isolates the cost of propagating an exception
+ * out of user code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrowingProviderBenchmark {
+  @Param({"REFLECTION", "METHOD_HANDLES", "GENERATED"})
+  public String strategy;
+
+  private ThrowingComponent component;
+
+  @Setup
+  public void setUp() {
+    System.setProperty("dagger.reflect.invocationStrategy", strategy);
+    try {
+      component = DaggerReflect.create(ThrowingComponent.class);
+      // Link both bindings while the strategy is set.
+      component.succeeding();
+      try {
+        component.throwing();
+      } catch (IllegalStateException ignored) {
+      }
+    } finally {
+      System.clearProperty("dagger.reflect.invocationStrategy");
+    }
+  }
+
+  @Benchmark
+  public Object succeeding() {
+    return component.succeeding();
+  }
+
+  @Benchmark
+  public Object throwing() {
+    try {
+      return component.throwing();
+    } catch (IllegalStateException e) {
+      return e;
+    }
+  }
+
+  @Component(modules = ThrowingModule.class)
+  public interface ThrowingComponent {
+    Integer succeeding();
+
+    String throwing();
+  }
+
+  @Module
+  abstract static class ThrowingModule {
+    private static int value;
+
+    @Provides
+    static Integer succeeding() {
+      return ++value;
+    }
+
+    @Provides
+    static String throwing() {
+      throw new IllegalStateException("Missing configuration");
+    }
+  }
+}
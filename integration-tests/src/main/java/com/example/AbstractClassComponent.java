@@ -0,0 +1,58 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import javax.inject.Inject;
+
+@Component(modules = AbstractClassComponent.Module1.class)
+public abstract class AbstractClassComponent {
+  public abstract String string();
+
+  public abstract long number();
+
+  public abstract Target inject(Target target);
+
+  public abstract Sub sub(Sub.Module2 module);
+
+  public String stringAndNumber() {
+    return string() + number();
+  }
+
+  public static final class Target {
+    @Inject String string;
+  }
+
+  @Module
+  abstract static class Module1 {
+    @Provides
+    static String string() {
+      return "foo";
+    }
+
+    @Provides
+    static long number() {
+      return 42L;
+    }
+  }
+
+  @Subcomponent(modules = Sub.Module2.class)
+  public interface Sub {
+    Integer integer();
+
+    @Module
+    final class Module2 {
+      private final int value;
+
+      Module2(int value) {
+        this.value = value;
+      }
+
+      @Provides
+      Integer integer() {
+        return value;
+      }
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package com.example;
+
+import dagger.Component;
+import dagger.MembersInjector;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import javax.inject.Inject;
+
+@Component(modules = AbstractClassComponentShapes.Module1.class)
+public abstract class AbstractClassComponentShapes {
+  public abstract boolean booleanValue();
+
+  public abstract byte byteValue();
+
+  public abstract char charValue();
+
+  public abstract short shortValue();
+
+  public abstract int intValue();
+
+  public abstract long longValue();
+
+  public abstract float floatValue();
+
+  public abstract double doubleValue();
+
+  public abstract String string();
+
+  public abstract void inject(Target target);
+
+  public abstract Target injectAndReturn(Target target);
+
+  public abstract MembersInjector<Target> targetInjector();
+
+  public abstract Sub sub(
+      Sub.IntegerModule integerModule,
+      Sub.LongModule longModule,
+      Sub.ShortModule shortModule,
+      Sub.ByteModule byteModule,
+      Sub.CharacterModule characterModule,
+      Sub.FloatModule floatModule,
+      Sub.DoubleModule doubleModule);
+
+  public static final class Target {
+    @Inject String string;
+    long number;
+
+    @Inject
+    void number(long number) {
+      this.number = number;
+    }
+  }
+
+  @Module
+  abstract static class Module1 {
+    @Provides
+    static boolean booleanValue() {
+      return true;
+    }
+
+    @Provides
+    static byte byteValue() {
+      return -8;
+    }
+
+    @Provides
+    static char charValue() {
+      return '∞';
+    }
+
+    @Provides
+    static short shortValue() {
+      return Short.MIN_VALUE;
+    }
+
+    @Provides
+    static int intValue() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Provides
+    static long longValue() {
+      return Long.MIN_VALUE;
+    }
+
+    @Provides
+    static float floatValue() {
+      return 1.5f;
+    }
+
+    @Provides
+    static double doubleValue() {
+      return -2.25;
+    }
+
+    @Provides
+    static String string() {
+      return "foo";
+    }
+  }
+
+  @Subcomponent(
+      modules = {
+        Sub.IntegerModule.class,
+        Sub.LongModule.class,
+        Sub.ShortModule.class,
+        Sub.ByteModule.class,
+        Sub.CharacterModule.class,
+        Sub.FloatModule.class,
+        Sub.DoubleModule.class
+      })
+  public interface Sub {
+    CharSequence values();
+
+    @Module
+    final class IntegerModule {
+      private final int value;
+
+      IntegerModule(int value) {
+        this.value = value;
+      }
+
+      @Provides
+      Integer value() {
+        return value;
+      }
+
+      @Provides
+      static CharSequence values(
+          Integer i, Long l, Short s, Byte b, Character c, Float f, Double d, String string) {
+        return string + ' ' + i + ' ' + l + ' ' + s + ' ' + b + ' ' + c + ' ' + f + ' ' + d;
+      }
+    }
+
+    @Module
+    final class LongModule {
+      private final long value;
+
+      LongModule(long value) {
+        this.value = value;
+      }
+
+      @Provides
+      Long value() {
+        return value;
+      }
+    }
+
+    @Module
+    final class ShortModule {
+      private final short value;
+
+      ShortModule(short value) {
+        this.value = value;
+      }
+
+      @Provides
+      Short value() {
+        return value;
+      }
+    }
+
+    @Module
+    final class ByteModule {
+      private final byte value;
+
+      ByteModule(byte value) {
+        this.value = value;
+      }
+
+      @Provides
+      Byte value() {
+        return value;
+      }
+    }
+
+    @Module
+    final class CharacterModule {
+      private final char value;
+
+      CharacterModule(char value) {
+        this.value = value;
+      }
+
+      @Provides
+      Character value() {
+        return value;
+      }
+    }
+
+    @Module
+    final class FloatModule {
+      private final float value;
+
+      FloatModule(float value) {
+        this.value = value;
+      }
+
+      @Provides
+      Float value() {
+        return value;
+      }
+    }
+
+    @Module
+    final class DoubleModule {
+      private final double value;
+
+      DoubleModule(double value) {
+        this.value = value;
+      }
+
+      @Provides
+      Double value() {
+        return value;
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Reusable;
+
+@Component(dependencies = ComponentDependencyReusable.Other.class)
+public interface ComponentDependencyReusable {
+  String string();
+
+  Integer count();
+
+  abstract class Other {
+    int stringCalls;
+    int countCalls;
+
+    @Reusable
+    String string() {
+      stringCalls++;
+      return "hey";
+    }
+
+    Integer count() {
+      return ++countCalls;
+    }
+  }
+
+  @Component.Factory
+  interface Factory {
+    ComponentDependencyReusable create(Other other);
+  }
+}
@@ -0,0 +1,23 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Subcomponent;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+@Component
+public interface EagerMethodsJustInTime {
+  Sub sub();
+
+  @Subcomponent
+  interface Sub {
+    Target target();
+  }
+
+  @Singleton
+  final class Target {
+    @Inject
+    Target() {}
+  }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import dagger.Component;
+import dagger.MembersInjector;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import javax.inject.Inject;
+
+@Component(modules = GeneratedInterfaceComponent.Module1.class)
+public interface GeneratedInterfaceComponent {
+  String string();
+
+  long number();
+
+  void inject(Target target);
+
+  Target injectAndReturn(Target target);
+
+  MembersInjector<Target> targetInjector();
+
+  Sub sub(Sub.Module2 module);
+
+  final class Target {
+    @Inject String string;
+  }
+
+  @Module
+  abstract class Module1 {
+    @Provides
+    static String string() {
+      return "foo";
+    }
+
+    @Provides
+    static long number() {
+      return 42L;
+    }
+  }
+
+  @Subcomponent(modules = Sub.Module2.class)
+  interface Sub {
+    Integer integer();
+
+    @Module
+    final class Module2 {
+      private final int value;
+
+      Module2(int value) {
+        this.value = value;
+      }
+
+      @Provides
+      Integer integer() {
+        return value;
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+
+@Component(modules = {IndexedModuleDuplicates.Module1.class, IndexedModuleDuplicates.Module2.class})
+public interface IndexedModuleDuplicates {
+  String string();
+
+  @Module
+  abstract class Module1 {
+    @Provides
+    static String one() {
+      return "one";
+    }
+  }
+
+  @Module
+  abstract class Module2 {
+    @Provides
+    static String two() {
+      return "two";
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/** Written by hand in place of the binding index reflect-compiler generates for the module. */
+public final class IndexedModuleDuplicates_Module1_BindingIndex {
+  public static final String[] BINDINGS = {
+    "P - one java.lang.String",
+  };
+
+  private IndexedModuleDuplicates_Module1_BindingIndex() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/** Written by hand in place of the binding index reflect-compiler generates for the module. */
+public final class IndexedModuleDuplicates_Module2_BindingIndex {
+  public static final String[] BINDINGS = {
+    "P - two java.lang.String",
+  };
+
+  private IndexedModuleDuplicates_Module2_BindingIndex() {
+    throw new AssertionError();
+  }
+}
@@ -1,13 +1,23 @@
 package com.example;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.fail;
 
 import dagger.Lazy;
 import dagger.MembersInjector;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.inject.Provider;
 import org.junit.Rule;
 import org.junit.Test;
@@ -341,6 +351,19 @@ public final class IntegrationTest {
     assertThat(value.get()).isEqualTo("one2");
   }
 
+  @Test
+  @IgnoreCodegen
+  public void providerSharedBetweenRequests() {
+    ProviderUnscopedBinding component = backend.create(ProviderUnscopedBinding.class);
+    Provider<String> value = component.value();
+    assertThat(component.value()).isSameInstanceAs(value);
+
+    ProviderUnscopedBinding.Module1.oneCount.set(1);
+
+    assertThat(value.get()).isEqualTo("one1");
+    assertThat(component.value().get()).isEqualTo("one2");
+  }
+
   @Test
   public void providerScopedBinding() {
     ProviderScopedBinding component = backend.create(ProviderScopedBinding.class);
@@ -678,6 +701,22 @@ public final class IntegrationTest {
     assertThat(out).isSameInstanceAs(in);
   }
 
+  @Test
+  public void abstractClassComponent() {
+    AbstractClassComponent component = backend.create(AbstractClassComponent.class);
+    assertThat(component.string()).isEqualTo("foo");
+    assertThat(component.number()).isEqualTo(42L);
+    assertThat(component.stringAndNumber()).isEqualTo("foo42");
+
+    AbstractClassComponent.Target in = new AbstractClassComponent.Target();
+    AbstractClassComponent.Target out = component.inject(in);
+    assertThat(out.string).isEqualTo("foo");
+    assertThat(out).isSameInstanceAs(in);
+
+    AbstractClassComponent.Sub sub = component.sub(new AbstractClassComponent.Sub.Module2(7));
+    assertThat(sub.integer()).isEqualTo(7);
+  }
+
   @Test
   public void memberInjectionNoInjects() {
     MemberInjectionNoInjects component = backend.create(MemberInjectionNoInjects.class);
@@ -986,6 +1025,17 @@ public final class IntegrationTest {
     assertThat(component.number()).isEqualTo(42);
   }
 
+  @Test
+  @IgnoreCodegen
+  public void indexedModulesDuplicateBinding() {
+    try {
+      backend.create(IndexedModuleDuplicates.class);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageThat().startsWith("Duplicate binding for java.lang.String: ");
+    }
+  }
+
   @Test
   public void moduleClassHierarchyStatics() {
     ModuleClassHierarchyStatics component = backend.create(ModuleClassHierarchyStatics.class);
@@ -1162,6 +1212,115 @@ public final class IntegrationTest {
     }
   }
 
+  @Test
+  @IgnoreCodegen
+  public void scopedBindingRetriedAfterFailure() throws Exception {
+    assertScopedBindingRetriedAfterFailure();
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void nonPinningScopedBindingRetriedAfterFailure() throws Exception {
+    System.setProperty("dagger.reflect.nonPinningScopes", "true");
+    try {
+      assertScopedBindingRetriedAfterFailure();
+    } finally {
+      System.clearProperty("dagger.reflect.nonPinningScopes");
+    }
+  }
+
+  private void assertScopedBindingRetriedAfterFailure() throws Exception {
+    ScopedBindingRetry.Module1.calls.set(0);
+    ScopedBindingRetry component = backend.create(ScopedBindingRetry.class);
+    try {
+      component.string();
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageThat().isEqualTo("first");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> strings = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        strings.add(executor.submit(component::string));
+      }
+      for (Future<String> future : strings) {
+        assertThat(future.get(10, SECONDS)).isEqualTo("string2");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(ScopedBindingRetry.Module1.calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void nonPinningScopedBindingRequestedWhileCreated() {
+    System.setProperty("dagger.reflect.nonPinningScopes", "true");
+    try {
+      ScopedBindingReentrant component = backend.create(ScopedBindingReentrant.class);
+      try {
+        component.string();
+        fail();
+      } catch (IllegalStateException e) {
+        assertThat(e)
+            .hasMessageThat()
+            .isEqualTo(
+                "Scoped binding for java.lang.String was requested while it was being created. "
+                    + "This is likely due to a circular dependency.");
+      }
+    } finally {
+      System.clearProperty("dagger.reflect.nonPinningScopes");
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void concurrentLinking() throws Exception {
+    JustInTimeScoped scoped = backend.create(JustInTimeScoped.class);
+    ProviderCycle cycle = backend.create(ProviderCycle.class);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<?>> things = new ArrayList<>();
+      List<Future<?>> strings = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        things.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return scoped.thing();
+                }));
+        strings.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return cycle.string();
+                }));
+      }
+      start.countDown();
+
+      Object thing = scoped.thing();
+      for (Future<?> future : things) {
+        assertThat(future.get(10, SECONDS)).isSameInstanceAs(thing);
+      }
+      // Threads waiting for another to link a cycle must not deadlock, and each reports it.
+      for (Future<?> future : strings) {
+        try {
+          future.get(10, SECONDS);
+          fail();
+        } catch (ExecutionException e) {
+          assertThat(e.getCause())
+              .hasMessageThat()
+              .startsWith("Dependency cycle for java.lang.String\n");
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   @IgnoreCodegen
   public void undeclaredModule() {
@@ -1257,6 +1416,20 @@ public final class IntegrationTest {
     }
   }
 
+  @Test
+  @IgnoreCodegen
+  public void membersInjectionMissingBindingsReportsSubclassFirst() {
+    MembersInjectionMissingBindings component =
+        backend.create(MembersInjectionMissingBindings.class);
+    MembersInjectionMissingBindings.Target instance = new MembersInjectionMissingBindings.Target();
+    try {
+      component.inject(instance);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessageThat().isEqualTo("No provider available for java.lang.Integer");
+    }
+  }
+
   @Test
   @IgnoreCodegen
   public void membersInjectionPrivateField() {
@@ -1325,37 +1498,220 @@ public final class IntegrationTest {
     }
   }
 
+  @Test
+  public void moduleInstancesAreNotSharedBetweenScopes() {
+    AbstractClassComponent component = backend.create(AbstractClassComponent.class);
+    assertThat(component.sub(new AbstractClassComponent.Sub.Module2(1)).integer()).isEqualTo(1);
+    assertThat(component.sub(new AbstractClassComponent.Sub.Module2(2)).integer()).isEqualTo(2);
+  }
+
   @Test
   @IgnoreCodegen
-  public void abstractClassCreateFails() {
+  public void eagerMethods() {
+    System.setProperty("dagger.reflect.eagerMethods", "true");
     try {
-      backend.create(AbstractComponent.class);
-      fail();
-    } catch (IllegalArgumentException e) {
-      assertThat(e)
-          .hasMessageThat()
-          .isEqualTo(
-              "com.example.AbstractComponent is not an interface. "
-                  + "Only interfaces are supported.");
+      AbstractClassComponent component = backend.create(AbstractClassComponent.class);
+      assertThat(component.stringAndNumber()).isEqualTo("foo42");
+    } finally {
+      System.clearProperty("dagger.reflect.eagerMethods");
     }
   }
 
   @Test
   @IgnoreCodegen
-  public void abstractClassBuilderFails() {
-    AbstractComponent.Builder builder = backend.builder(AbstractComponent.Builder.class);
+  public void eagerMethodsJustInTimeAfterSeal() {
+    System.setProperty("dagger.reflect.eagerMethods", "true");
     try {
-      builder.build();
-      fail();
-    } catch (IllegalArgumentException e) {
-      assertThat(e)
-          .hasMessageThat()
-          .isEqualTo(
-              "com.example.AbstractComponent is not an interface. "
-                  + "Only interfaces are supported.");
+      EagerMethodsJustInTime component = backend.create(EagerMethodsJustInTime.class);
+      // Added to the component's scope by the first subcomponent, after the scope was sealed.
+      EagerMethodsJustInTime.Target target = component.sub().target();
+      // Enough lookups to seal the scope again with the just-in-time binding.
+      for (int i = 0; i < 100; i++) {
+        assertThat(component.sub().target()).isSameInstanceAs(target);
+      }
+    } finally {
+      System.clearProperty("dagger.reflect.eagerMethods");
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void eagerMethodsReportErrorsWhenCalled() {
+    System.setProperty("dagger.reflect.eagerMethods", "true");
+    try {
+      MembersInjectionPrivateMethod component = backend.create(MembersInjectionPrivateMethod.class);
+      try {
+        component.inject(new MembersInjectionPrivateMethod.Target());
+        fail();
+      } catch (IllegalArgumentException e) {
+        assertThat(e)
+            .hasMessageThat()
+            .startsWith("Dagger does not support injection into private methods: ");
+      }
+    } finally {
+      System.clearProperty("dagger.reflect.eagerMethods");
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void eagerMethodsSealedScope() {
+    System.setProperty("dagger.reflect.eagerMethods", "true");
+    try {
+      AbstractClassComponent component = backend.create(AbstractClassComponent.class);
+      // Resolved from the sealed table of the parent scope.
+      assertThat(component.sub(new AbstractClassComponent.Sub.Module2(3)).integer()).isEqualTo(3);
+      assertThat(component.inject(new AbstractClassComponent.Target()).string).isEqualTo("foo");
+      assertThat(component.stringAndNumber()).isEqualTo("foo42");
+    } finally {
+      System.clearProperty("dagger.reflect.eagerMethods");
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void parallelModuleParsing() {
+    System.setProperty("dagger.reflect.parallelModuleParsing", "true");
+    try {
+      ScopedWithMultipleAnnotations component = backend.create(ScopedWithMultipleAnnotations.class);
+      assertThat(component.value()).isSameInstanceAs(component.value());
+      assertThat(backend.create(ModuleIncludes.class).string()).isEqualTo("5");
+    } finally {
+      System.clearProperty("dagger.reflect.parallelModuleParsing");
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void generatedInterfaceComponents() {
+    for (boolean generated : new boolean[] {false, true}) {
+      System.setProperty("dagger.reflect.generatedComponents", String.valueOf(generated));
+      try {
+        GeneratedInterfaceComponent component = backend.create(GeneratedInterfaceComponent.class);
+        assertThat(Proxy.isProxyClass(component.getClass())).isEqualTo(!generated);
+        assertThat(component.string()).isEqualTo("foo");
+        assertThat(component.number()).isEqualTo(42L);
+
+        GeneratedInterfaceComponent.Target target = new GeneratedInterfaceComponent.Target();
+        component.inject(target);
+        assertThat(target.string).isEqualTo("foo");
+        target = new GeneratedInterfaceComponent.Target();
+        assertThat(component.injectAndReturn(target)).isSameInstanceAs(target);
+        assertThat(target.string).isEqualTo("foo");
+        target = new GeneratedInterfaceComponent.Target();
+        component.targetInjector().injectMembers(target);
+        assertThat(target.string).isEqualTo("foo");
+
+        assertThat(component.sub(new GeneratedInterfaceComponent.Sub.Module2(3)).integer())
+            .isEqualTo(3);
+      } finally {
+        System.clearProperty("dagger.reflect.generatedComponents");
+      }
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void invocationStrategies() {
+    for (String strategy : new String[] {"REFLECTION", "METHOD_HANDLES", "GENERATED"}) {
+      System.setProperty("dagger.reflect.invocationStrategy", strategy);
+      try {
+        AbstractClassComponent component = backend.create(AbstractClassComponent.class);
+        assertThat(component.stringAndNumber()).isEqualTo("foo42");
+        assertThat(component.inject(new AbstractClassComponent.Target()).string).isEqualTo("foo");
+        assertThat(component.sub(new AbstractClassComponent.Sub.Module2(3)).integer()).isEqualTo(3);
+
+        JustInTimeMembersInjection justInTime = backend.create(JustInTimeMembersInjection.class);
+        JustInTimeMembersInjection.Thing thing = justInTime.thing();
+        assertThat(thing.stringConstructor).isEqualTo("hey");
+        assertThat(thing.stringField).isEqualTo("hey");
+        assertThat(thing.stringMethod).isEqualTo("hey");
+      } finally {
+        System.clearProperty("dagger.reflect.invocationStrategy");
+      }
     }
   }
 
+  @Test
+  @IgnoreCodegen
+  public void checkedExceptionsAreWrapped() {
+    for (String strategy : new String[] {"REFLECTION", "METHOD_HANDLES", "GENERATED"}) {
+      System.setProperty("dagger.reflect.invocationStrategy", strategy);
+      try {
+        ThrowingBindings component = backend.create(ThrowingBindings.class);
+        try {
+          component.string();
+          fail();
+        } catch (RuntimeException e) {
+          assertThat(e.getCause()).isInstanceOf(IOException.class);
+          assertThat(e.getCause()).hasMessageThat().isEqualTo("provides");
+        }
+        try {
+          component.thing();
+          fail();
+        } catch (RuntimeException e) {
+          assertThat(e.getCause()).isInstanceOf(IOException.class);
+          assertThat(e.getCause()).hasMessageThat().isEqualTo("constructor");
+        }
+      } finally {
+        System.clearProperty("dagger.reflect.invocationStrategy");
+      }
+    }
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void abstractClassCreate() {
+    AbstractComponent component = backend.create(AbstractComponent.class);
+    assertThat(component).isNotNull();
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void abstractClassComponentShapes() {
+    AbstractClassComponentShapes component = backend.create(AbstractClassComponentShapes.class);
+    assertThat(component.booleanValue()).isTrue();
+    assertThat(component.byteValue()).isEqualTo((byte) -8);
+    assertThat(component.charValue()).isEqualTo('∞');
+    assertThat(component.shortValue()).isEqualTo(Short.MIN_VALUE);
+    assertThat(component.intValue()).isEqualTo(Integer.MAX_VALUE);
+    assertThat(component.longValue()).isEqualTo(Long.MIN_VALUE);
+    assertThat(component.floatValue()).isEqualTo(1.5f);
+    assertThat(component.doubleValue()).isEqualTo(-2.25);
+    assertThat(component.string()).isEqualTo("foo");
+
+    AbstractClassComponentShapes.Target target = new AbstractClassComponentShapes.Target();
+    component.inject(target);
+    assertThat(target.string).isEqualTo("foo");
+    assertThat(target.number).isEqualTo(Long.MIN_VALUE);
+
+    AbstractClassComponentShapes.Target returned = new AbstractClassComponentShapes.Target();
+    assertThat(component.injectAndReturn(returned)).isSameInstanceAs(returned);
+    assertThat(returned.string).isEqualTo("foo");
+
+    AbstractClassComponentShapes.Target injected = new AbstractClassComponentShapes.Target();
+    component.targetInjector().injectMembers(injected);
+    assertThat(injected.number).isEqualTo(Long.MIN_VALUE);
+
+    AbstractClassComponentShapes.Sub sub =
+        component.sub(
+            new AbstractClassComponentShapes.Sub.IntegerModule(1),
+            new AbstractClassComponentShapes.Sub.LongModule(2L),
+            new AbstractClassComponentShapes.Sub.ShortModule((short) 3),
+            new AbstractClassComponentShapes.Sub.ByteModule((byte) 4),
+            new AbstractClassComponentShapes.Sub.CharacterModule('5'),
+            new AbstractClassComponentShapes.Sub.FloatModule(6f),
+            new AbstractClassComponentShapes.Sub.DoubleModule(7.0));
+    assertThat(sub.values().toString()).isEqualTo("foo 1 2 3 4 5 6.0 7.0");
+  }
+
+  @Test
+  @IgnoreCodegen
+  public void abstractClassBuilder() {
+    AbstractComponent component = backend.builder(AbstractComponent.Builder.class).build();
+    assertThat(component).isNotNull();
+  }
+
   @Test
   @IgnoreCodegen
   public void noComponentAnnotationCreateFails() {
@@ -1437,6 +1793,20 @@ public final class IntegrationTest {
     }
   }
 
+  @Test
+  public void componentDependencyReusableIsNotCached() {
+    ComponentDependencyReusable.Other other = new ComponentDependencyReusable.Other() {};
+    ComponentDependencyReusable component =
+        backend.factory(ComponentDependencyReusable.Factory.class).create(other);
+
+    assertThat(component.string()).isEqualTo("hey");
+    assertThat(component.string()).isEqualTo("hey");
+    assertThat(other.stringCalls).isEqualTo(2);
+
+    assertThat(component.count()).isEqualTo(1);
+    assertThat(component.count()).isEqualTo(2);
+  }
+
   @Test
   public void subcomponentProvision() {
     SubcomponentProvision.Nested nested = backend.create(SubcomponentProvision.class).nested();
@@ -1456,6 +1826,25 @@ public final class IntegrationTest {
     assertThat(nested.two()).isEqualTo(2L);
   }
 
+  @Test
+  public void subcomponentBuilderInstancesAreIndependent() {
+    SubcomponentBuilderProvision component = backend.create(SubcomponentBuilderProvision.class);
+    SubcomponentBuilderProvision.Nested nested1 =
+        component
+            .nestedBuilder()
+            .module2(new SubcomponentBuilderProvision.Nested.Module2(2L))
+            .build();
+    SubcomponentBuilderProvision.Nested nested2 =
+        component
+            .nestedBuilder()
+            .module2(new SubcomponentBuilderProvision.Nested.Module2(3L))
+            .build();
+    assertThat(nested1.two()).isEqualTo(2L);
+    assertThat(nested2.two()).isEqualTo(3L);
+    assertThat(nested1.one()).isEqualTo("one");
+    assertThat(nested2.one()).isEqualTo("one");
+  }
+
   @Test
   public void subcomponentFactoryMethod() {
     SubcomponentFactoryMethod.Nested nested =
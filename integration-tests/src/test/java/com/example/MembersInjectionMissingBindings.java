@@ -0,0 +1,17 @@
+package com.example;
+
+import dagger.Component;
+import javax.inject.Inject;
+
+@Component
+public interface MembersInjectionMissingBindings {
+  void inject(Target instance);
+
+  class Base {
+    @Inject Long base;
+  }
+
+  class Target extends Base {
+    @Inject Integer own;
+  }
+}
@@ -0,0 +1,22 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+@Singleton
+@Component(modules = ScopedBindingReentrant.Module1.class)
+public interface ScopedBindingReentrant {
+  String string();
+
+  @Module
+  abstract class Module1 {
+    @Provides
+    @Singleton
+    static String string(Provider<String> string) {
+      return string.get();
+    }
+  }
+}
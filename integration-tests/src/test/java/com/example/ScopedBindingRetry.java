@@ -0,0 +1,27 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Singleton;
+
+@Singleton
+@Component(modules = ScopedBindingRetry.Module1.class)
+public interface ScopedBindingRetry {
+  String string();
+
+  @Module
+  abstract class Module1 {
+    static final AtomicInteger calls = new AtomicInteger();
+
+    @Provides
+    @Singleton
+    static String string() {
+      if (calls.incrementAndGet() == 1) {
+        throw new IllegalStateException("first");
+      }
+      return "string" + calls.get();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.example;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import java.io.IOException;
+import javax.inject.Inject;
+
+@Component(modules = ThrowingBindings.Module1.class)
+public interface ThrowingBindings {
+  String string();
+
+  Thing thing();
+
+  final class Thing {
+    @Inject
+    Thing() throws IOException {
+      throw new IOException("constructor");
+    }
+  }
+
+  @Module
+  abstract class Module1 {
+    @Provides
+    static String string() throws IOException {
+      throw new IOException("provides");
+    }
+  }
+}
@@ -15,8 +15,8 @@
  */
 package dagger.reflect.compiler;
 
-import static java.util.Collections.singleton;
 import static javax.lang.model.SourceVersion.RELEASE_8;
+import static javax.lang.model.element.ElementKind.METHOD;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
@@ -26,12 +26,27 @@ import static net.ltgt.gradle.incap.IncrementalAnnotationProcessorType.ISOLATING
 
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
+import dagger.Binds;
+import dagger.BindsOptionalOf;
 import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.ElementsIntoSet;
+import dagger.multibindings.IntoMap;
+import dagger.multibindings.IntoSet;
+import dagger.multibindings.Multibinds;
 import dagger.reflect.DaggerReflect;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
@@ -39,17 +54,34 @@ import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
+import javax.inject.Qualifier;
+import javax.inject.Scope;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessor;
 import org.jetbrains.annotations.Nullable;
 
 @IncrementalAnnotationProcessor(ISOLATING)
 @AutoService(Processor.class)
 public final class DaggerReflectCompiler extends AbstractProcessor {
+  private static final String CONTRIBUTES_ANDROID_INJECTOR =
+      "dagger.android.ContributesAndroidInjector";
+
   private Filer filer;
   private Messager messager;
+  private Elements elements;
+  private Types types;
   private @Nullable AnnotationSpec generatedAnnotation;
 
   @Override
@@ -57,6 +89,8 @@ public final class DaggerReflectCompiler extends AbstractProcessor {
     super.init(processingEnv);
     filer = processingEnv.getFiler();
     messager = processingEnv.getMessager();
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
 
     String generatedAnnotationName =
         processingEnv.getSourceVersion().compareTo(RELEASE_8) <= 0
@@ -75,7 +109,8 @@ public final class DaggerReflectCompiler extends AbstractProcessor {
 
   @Override
   public Set<String> getSupportedAnnotationTypes() {
-    return singleton(Component.class.getCanonicalName());
+    return new LinkedHashSet<>(
+        Arrays.asList(Component.class.getCanonicalName(), Module.class.getCanonicalName()));
   }
 
   @Override
@@ -111,9 +146,166 @@ public final class DaggerReflectCompiler extends AbstractProcessor {
         messager.printMessage(ERROR, "Unable to write component implementation: " + e, component);
       }
     }
+
+    for (Element candidate : roundEnv.getElementsAnnotatedWith(Module.class)) {
+      TypeElement module = (TypeElement) candidate;
+      TypeSpec.Builder typeBuilder =
+          createBindingIndex(ClassName.get(module), findBindings(module))
+              .toBuilder()
+              .addOriginatingElement(module);
+      if (generatedAnnotation != null) {
+        typeBuilder.addAnnotation(generatedAnnotation);
+      }
+      JavaFile file =
+          JavaFile.builder(ClassName.get(module).packageName(), typeBuilder.build())
+              .addFileComment("Generated by Dagger's reflect-compiler. Do not modify!")
+              .build();
+      try {
+        file.writeTo(filer);
+      } catch (Exception e) {
+        messager.printMessage(ERROR, "Unable to write module binding index: " + e, module);
+      }
+    }
     return false;
   }
 
+  /**
+   * Returns an entry describing each binding method of {@code module} in declaration order. The
+   * format is documented by {@code BindingIndex} in the runtime. Only the annotations Dagger uses
+   * to classify methods are inspected so that this stays cheap compared to the Dagger compiler.
+   */
+  private List<String> findBindings(TypeElement module) {
+    List<String> entries = new ArrayList<>();
+    for (Element enclosed : module.getEnclosedElements()) {
+      if (enclosed.getKind() != METHOD) {
+        continue;
+      }
+      ExecutableElement method = (ExecutableElement) enclosed;
+      String kind = bindingKind(method);
+      if (kind == null) {
+        continue;
+      }
+      StringBuilder entry =
+          new StringBuilder(kind)
+              .append(' ')
+              .append(bindingFlags(method))
+              .append(' ')
+              .append(method.getSimpleName())
+              .append(' ')
+              .append(rawTypeBinaryName(method.getReturnType()));
+      for (VariableElement parameter : method.getParameters()) {
+        entry.append(' ').append(erasedBinaryName(parameter.asType()));
+      }
+      entries.add(entry.toString());
+    }
+    return entries;
+  }
+
+  private static @Nullable String bindingKind(ExecutableElement method) {
+    if (method.getAnnotation(Provides.class) != null) {
+      return "P";
+    }
+    if (method.getAnnotation(Binds.class) != null) {
+      return "B";
+    }
+    if (method.getAnnotation(BindsOptionalOf.class) != null) {
+      return "O";
+    }
+    if (method.getAnnotation(Multibinds.class) != null) {
+      return "M";
+    }
+    for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+      // dagger-android is not a dependency of this processor so its annotation is matched by name.
+      TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(CONTRIBUTES_ANDROID_INJECTOR)) {
+        return "A";
+      }
+    }
+    return null;
+  }
+
+  private static String bindingFlags(ExecutableElement method) {
+    boolean qualified = false;
+    boolean scoped = false;
+    for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+      Element annotationType = annotation.getAnnotationType().asElement();
+      qualified |= annotationType.getAnnotation(Qualifier.class) != null;
+      scoped |= annotationType.getAnnotation(Scope.class) != null;
+    }
+    StringBuilder flags = new StringBuilder();
+    if (method.getAnnotation(IntoSet.class) != null) {
+      flags.append('S');
+    }
+    if (method.getAnnotation(ElementsIntoSet.class) != null) {
+      flags.append('E');
+    }
+    if (method.getAnnotation(IntoMap.class) != null) {
+      flags.append('K');
+    }
+    if (qualified) {
+      flags.append('Q');
+    }
+    if (scoped) {
+      flags.append('C');
+    }
+    if (method.getModifiers().contains(PRIVATE)) {
+      flags.append('X');
+    }
+    return flags.length() > 0 ? flags.toString() : "-";
+  }
+
+  /** The binary name of the raw type of {@code type}, boxing primitives, or "-" for others. */
+  private String rawTypeBinaryName(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      type = types.boxedClass((PrimitiveType) type).asType();
+    }
+    if (type.getKind() != TypeKind.DECLARED) {
+      return "-";
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    return elements.getBinaryName(element).toString();
+  }
+
+  /** The name of the erasure of {@code type} in the form accepted by {@link Class#forName}. */
+  private String erasedBinaryName(TypeMirror type) {
+    TypeMirror erased = types.erasure(type);
+    switch (erased.getKind()) {
+      case ARRAY:
+        return descriptor(erased);
+      case DECLARED:
+        return elements.getBinaryName((TypeElement) ((DeclaredType) erased).asElement()).toString();
+      default:
+        return erased.toString(); // A primitive keyword.
+    }
+  }
+
+  private String descriptor(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return "Z";
+      case BYTE:
+        return "B";
+      case CHAR:
+        return "C";
+      case SHORT:
+        return "S";
+      case INT:
+        return "I";
+      case LONG:
+        return "J";
+      case FLOAT:
+        return "F";
+      case DOUBLE:
+        return "D";
+      case ARRAY:
+        return "[" + descriptor(types.erasure(((ArrayType) type).getComponentType()));
+      case DECLARED:
+        return "L" + elements.getBinaryName((TypeElement) ((DeclaredType) type).asElement()) + ";";
+      default:
+        throw new IllegalArgumentException("Unexpected type: " + type);
+    }
+  }
+
   private static @Nullable TypeElement findBuilder(TypeElement component) {
     for (Element enclosed : component.getEnclosedElements()) {
       if (enclosed.getAnnotation(Component.Builder.class) != null) {
@@ -167,4 +359,24 @@ public final class DaggerReflectCompiler extends AbstractProcessor {
     }
     return type.build();
   }
+
+  private static TypeSpec createBindingIndex(ClassName module, List<String> entries) {
+    CodeBlock.Builder bindings = CodeBlock.builder().add("{\n$>$>");
+    for (String entry : entries) {
+      bindings.add("$S,\n", entry);
+    }
+    bindings.add("$<$<}");
+    return TypeSpec.classBuilder(String.join("_", module.simpleNames()) + "_BindingIndex")
+        .addModifiers(PUBLIC, FINAL)
+        .addField(
+            FieldSpec.builder(ArrayTypeName.of(String.class), "BINDINGS", PUBLIC, STATIC, FINAL)
+                .initializer(bindings.build())
+                .build())
+        .addMethod(
+            MethodSpec.constructorBuilder()
+                .addModifiers(PRIVATE)
+                .addStatement("throw new $T()", AssertionError.class)
+                .build())
+        .build();
+  }
 }
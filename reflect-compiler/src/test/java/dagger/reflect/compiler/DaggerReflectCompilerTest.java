@@ -230,4 +230,87 @@ public final class DaggerReflectCompilerTest {
         .and()
         .generatesSources(expected);
   }
+
+  @Test
+  public void moduleBindingIndex() {
+    JavaFileObject module =
+        JavaFileObjects.forSourceString(
+            "example.TestModule",
+            ""
+                + "package example;\n"
+                + "\n"
+                + "import dagger.Binds;\n"
+                + "import dagger.BindsOptionalOf;\n"
+                + "import dagger.Module;\n"
+                + "import dagger.Provides;\n"
+                + "import dagger.multibindings.IntoMap;\n"
+                + "import dagger.multibindings.IntoSet;\n"
+                + "import dagger.multibindings.Multibinds;\n"
+                + "import dagger.multibindings.StringKey;\n"
+                + "import java.util.List;\n"
+                + "import java.util.Set;\n"
+                + "import javax.inject.Named;\n"
+                + "import javax.inject.Singleton;\n"
+                + "\n"
+                + "@Module\n"
+                + "abstract class TestModule {\n"
+                + "  interface Thing {}\n"
+                + "  static final class RealThing implements Thing {}\n"
+                + "  @Provides static String string() { return \"\"; }\n"
+                + "  @Provides static int number() { return 1; }\n"
+                + "  @Provides static List<String> strings() { return null; }\n"
+                + "  @Provides static Long sum(int a, String[] b, List<String> c) { return 1L; }\n"
+                + "  @Binds abstract Thing thing(RealThing realThing);\n"
+                + "  @Provides @Named(\"a\") static String named() { return \"\"; }\n"
+                + "  @Provides @Singleton static Object scoped() { return new Object(); }\n"
+                + "  @Provides @IntoSet static String element() { return \"\"; }\n"
+                + "  @Provides @IntoMap @StringKey(\"k\") static String entry() { return \"\"; }\n"
+                + "  @Provides static String[] array() { return new String[0]; }\n"
+                + "  @BindsOptionalOf abstract Thing optionalThing();\n"
+                + "  @Multibinds abstract Set<Thing> things();\n"
+                + "  static String notABinding() { return \"\"; }\n"
+                + "}\n");
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString(
+            "example.TestModule_BindingIndex",
+            ""
+                + "package example;\n"
+                + "\n"
+                + "import java.lang.AssertionError;\n"
+                + "import java.lang.String;\n"
+                + generatedAnnotationImport
+                + "\n"
+                + "@Generated(\n"
+                + "    value = \"dagger.reflect.compiler.DaggerReflectCompiler\",\n"
+                + "    comments = \"https://github.com/JakeWharton/dagger-reflect\"\n"
+                + ")\n"
+                + "public final class TestModule_BindingIndex {\n"
+                + "  public static final String[] BINDINGS = {\n"
+                + "      \"P - string java.lang.String\",\n"
+                + "      \"P - number java.lang.Integer\",\n"
+                + "      \"P - strings java.util.List\",\n"
+                + "      \"P - sum java.lang.Long int [Ljava.lang.String; java.util.List\",\n"
+                + "      \"B - thing example.TestModule$Thing example.TestModule$RealThing\",\n"
+                + "      \"P Q named java.lang.String\",\n"
+                + "      \"P C scoped java.lang.Object\",\n"
+                + "      \"P S element java.lang.String\",\n"
+                + "      \"P K entry java.lang.String\",\n"
+                + "      \"P - array -\",\n"
+                + "      \"O - optionalThing example.TestModule$Thing\",\n"
+                + "      \"M - things java.util.Set\",\n"
+                + "      };\n"
+                + "\n"
+                + "  private TestModule_BindingIndex() {\n"
+                + "    throw new AssertionError();\n"
+                + "  }\n"
+                + "}\n");
+
+    assertAbout(javaSource())
+        .that(module)
+        .processedWith(new DaggerReflectCompiler())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
 }
@@ -28,15 +28,15 @@ interface Binding {
   // TODO if we ever make this public API we may need to enforce Scope isn't used to get bindings.
   LinkedBinding<?> link(Linker linker, Scope scope);
 
-  Binding asScoped();
+  Binding asScoped(Key key);
 
   @Override
   String toString();
 
   abstract class UnlinkedBinding implements Binding {
     @Override
-    public final Binding asScoped() {
-      return new UnlinkedScopedBinding(this);
+    public final Binding asScoped(Key key) {
+      return new UnlinkedScopedBinding(this, key);
     }
   }
 
@@ -47,8 +47,8 @@ interface Binding {
     }
 
     @Override
-    public final Binding asScoped() {
-      return new LinkedScopedBinding<>(this);
+    public final Binding asScoped(Key key) {
+      return new LinkedScopedBinding<>(this, key);
     }
   }
 }
@@ -0,0 +1,221 @@
+package dagger.reflect;
+
+import static dagger.reflect.ClassFileWriter.ACC_FINAL;
+import static dagger.reflect.ClassFileWriter.ACC_PRIVATE;
+import static dagger.reflect.ClassFileWriter.OBJECT;
+import static dagger.reflect.ClassFileWriter.descriptor;
+import static dagger.reflect.ClassFileWriter.internalName;
+import static dagger.reflect.ClassFileWriter.methodDescriptor;
+import static dagger.reflect.ClassFileWriter.slots;
+
+import dagger.reflect.Binding.LinkedBinding;
+import dagger.reflect.ClassFileWriter.Code;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the class files defined by {@link HiddenClassBindings}. Each class calls its target
+ * directly with {@code invokestatic}, {@code invokevirtual}, {@code invokeinterface}, {@code
+ * invokespecial}, or {@code putfield}, reading each argument from a dependency {@code Provider}
+ * held in a final field. The constructor takes the value of every field, in declaration order, as a
+ * single {@code Object[]}.
+ *
+ * <p>Binding classes extend {@link LinkedBinding}. It is not accessible from other packages in
+ * source, but like every member type of an interface its class file is public.
+ */
+final class BindingClassWriter {
+  static final Class<?>[] CONSTRUCTOR_PARAMETERS = {Object[].class};
+
+  private static final String LINKED_BINDING = internalName(LinkedBinding.class);
+  private static final String PROVIDER = "javax/inject/Provider";
+  private static final String MEMBERS_INJECTOR = "dagger/MembersInjector";
+  private static final String RECEIVER_FIELD = "receiver";
+  private static final String INJECTOR_FIELD = "injector";
+
+  /** {@code return receiver.method(dependency0.get(), dependency1.get(), …);} */
+  static byte[] writeProvides(String className, Method method, String description) {
+    Class<?> owner = method.getDeclaringClass();
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+    ClassFileWriter writer = new ClassFileWriter(className);
+    Fields fields = dependencyFields(writer, parameterTypes.length);
+    if (!isStatic) {
+      fields.add(RECEIVER_FIELD, internalName(owner));
+    }
+    writeConstructor(writer, LINKED_BINDING, fields);
+
+    Code code = writer.code();
+    if (!isStatic) {
+      code.aload(0).getfield(writer.name(), RECEIVER_FIELD, descriptor(owner));
+    }
+    int argumentSlots = loadDependencies(writer, code, 0, parameterTypes);
+    String ownerName = internalName(owner);
+    String methodDescriptor = methodDescriptor(method);
+    if (isStatic) {
+      code.invokestatic(ownerName, owner.isInterface(), method.getName(), methodDescriptor);
+    } else if (owner.isInterface()) {
+      code.invokeinterface(ownerName, method.getName(), methodDescriptor, argumentSlots + 1);
+    } else {
+      code.invokevirtual(ownerName, method.getName(), methodDescriptor);
+    }
+    code.box(method.getReturnType()).returnValue(Object.class);
+    writer.method("get", "()Ljava/lang/Object;", code, argumentSlots + 3, 1);
+
+    writeToString(writer, description);
+    return writer.toByteArray(LINKED_BINDING);
+  }
+
+  /**
+   * {@code T instance = new T(dependency0.get(), …); injector.injectMembers(instance); return
+   * instance;}
+   */
+  static byte[] writeConstructor(
+      String className, Constructor<?> constructor, boolean injectsMembers, String description) {
+    String ownerName = internalName(constructor.getDeclaringClass());
+    Class<?>[] parameterTypes = constructor.getParameterTypes();
+
+    ClassFileWriter writer = new ClassFileWriter(className);
+    Fields fields = dependencyFields(writer, parameterTypes.length);
+    if (injectsMembers) {
+      fields.add(INJECTOR_FIELD, MEMBERS_INJECTOR);
+    }
+    writeConstructor(writer, LINKED_BINDING, fields);
+
+    Code code = writer.code();
+    code.typeOp(0xbb, ownerName).op(0x59); // new, dup
+    int argumentSlots = loadDependencies(writer, code, 0, parameterTypes);
+    code.invokespecial(ownerName, "<init>", methodDescriptor(constructor));
+    if (injectsMembers) {
+      code.astore(1)
+          .aload(0)
+          .getfield(writer.name(), INJECTOR_FIELD, 'L' + MEMBERS_INJECTOR + ';')
+          .aload(1)
+          .invokeinterface(MEMBERS_INJECTOR, "injectMembers", "(Ljava/lang/Object;)V", 2)
+          .aload(1);
+    }
+    code.returnValue(Object.class);
+    writer.method("get", "()Ljava/lang/Object;", code, argumentSlots + 4, 2);
+
+    writeToString(writer, description);
+    return writer.toByteArray(LINKED_BINDING);
+  }
+
+  /**
+   * {@code instance.field = dependency0.get(); …; instance.method(dependency1.get(), …); …} where
+   * fields and methods are all declared by the same class.
+   */
+  static byte[] writeMembersInjector(
+      String className, Class<?> owner, Field[] fields, Method[] methods, int dependencyCount) {
+    String ownerName = internalName(owner);
+
+    ClassFileWriter writer = new ClassFileWriter(className);
+    writeConstructor(writer, OBJECT, dependencyFields(writer, dependencyCount));
+
+    Code code = writer.code();
+    code.aload(1).checkcast(ownerName).astore(2);
+    int maxArgumentSlots = 0;
+    int dependency = 0;
+    // Per JSR 330, fields are injected before methods.
+    for (Field field : fields) {
+      Class<?> fieldType = field.getType();
+      code.aload(2);
+      loadDependencies(writer, code, dependency++, fieldType);
+      code.putfield(ownerName, field.getName(), descriptor(fieldType));
+      maxArgumentSlots = Math.max(maxArgumentSlots, slots(fieldType));
+    }
+    for (Method method : methods) {
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      code.aload(2);
+      int argumentSlots = loadDependencies(writer, code, dependency, parameterTypes);
+      dependency += parameterTypes.length;
+      code.invokevirtual(ownerName, method.getName(), methodDescriptor(method));
+      Class<?> returnType = method.getReturnType();
+      if (returnType != void.class) {
+        code.op(slots(returnType) == 2 ? 0x58 : 0x57); // pop2 or pop
+      }
+      maxArgumentSlots = Math.max(maxArgumentSlots, Math.max(argumentSlots, slots(returnType)));
+    }
+    code.returnValue(void.class);
+    writer.method("injectMembers", "(Ljava/lang/Object;)V", code, maxArgumentSlots + 3, 3);
+
+    return writer.toByteArray(OBJECT, MEMBERS_INJECTOR);
+  }
+
+  private static Fields dependencyFields(ClassFileWriter writer, int count) {
+    Fields fields = new Fields(writer);
+    for (int i = 0; i < count; i++) {
+      fields.add(dependencyField(i), PROVIDER);
+    }
+    return fields;
+  }
+
+  private static void writeConstructor(ClassFileWriter writer, String superName, Fields fields) {
+    Code code = writer.code();
+    code.aload(0).invokespecial(superName, "<init>", "()V");
+    for (int i = 0; i < fields.names.size(); i++) {
+      String type = fields.types.get(i);
+      code.aload(0)
+          .aload(1)
+          .pushInt(i)
+          .op(0x32) // aaload
+          .checkcast(type)
+          .putfield(writer.name(), fields.names.get(i), 'L' + type + ';');
+    }
+    code.returnValue(void.class);
+    writer.method("<init>", "([Ljava/lang/Object;)V", code, 3, 2);
+  }
+
+  /**
+   * Push the values of the dependencies starting at {@code first} converted to {@code types}.
+   * Returns the number of stack slots they occupy.
+   */
+  private static int loadDependencies(
+      ClassFileWriter writer, Code code, int first, Class<?>... types) {
+    int slots = 0;
+    for (int i = 0; i < types.length; i++) {
+      code.aload(0)
+          .getfield(writer.name(), dependencyField(first + i), 'L' + PROVIDER + ';')
+          .invokeinterface(PROVIDER, "get", "()Ljava/lang/Object;", 1)
+          .cast(types[i]);
+      slots += slots(types[i]);
+    }
+    return slots;
+  }
+
+  private static void writeToString(ClassFileWriter writer, String description) {
+    Code code = writer.code();
+    code.ldc(description).returnValue(String.class);
+    writer.method("toString", "()Ljava/lang/String;", code, 1, 1);
+  }
+
+  private static String dependencyField(int index) {
+    return "dependency" + index;
+  }
+
+  /** The fields declared by a class, which are assigned in order by its constructor. */
+  private static final class Fields {
+    final ClassFileWriter writer;
+    final List<String> names = new ArrayList<>();
+    /** Internal names of each field's type. */
+    final List<String> types = new ArrayList<>();
+
+    Fields(ClassFileWriter writer) {
+      this.writer = writer;
+    }
+
+    void add(String name, String type) {
+      writer.field(ACC_PRIVATE | ACC_FINAL, name, 'L' + type + ';');
+      names.add(name);
+      types.add(type);
+    }
+  }
+
+  private BindingClassWriter() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,156 @@
+package dagger.reflect;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The binding methods of a module class as listed by the class which {@code reflect-compiler}
+ * generates for it. Modules compiled without it have no index and their declared methods are
+ * scanned instead.
+ *
+ * <p>The generated class is named after the module's nested simple names joined with underscores
+ * and suffixed with {@code _BindingIndex}. Its public static {@code BINDINGS} field holds one entry
+ * per binding method in declaration order. Each entry is a list of fields separated by spaces:
+ *
+ * <ol>
+ *   <li>The kind of method: {@code P} for {@code @Provides}, {@code B} for {@code @Binds}, {@code
+ *       O} for {@code @BindsOptionalOf}, {@code M} for {@code @Multibinds}, or {@code A} for
+ *       {@code @ContributesAndroidInjector}.
+ *   <li>Flags, or {@code -} for none: {@code S} for {@code @IntoSet}, {@code E} for
+ *       {@code @ElementsIntoSet}, {@code K} for {@code @IntoMap}, {@code Q} when qualified, {@code
+ *       C} when scoped, and {@code X} when private.
+ *   <li>The method's name.
+ *   <li>The binary name of the raw return type with primitives boxed, or {@code -} if it is not a
+ *       class.
+ *   <li>The binary name of the erasure of each parameter type, as accepted by {@link
+ *       Class#forName}, or the keyword of a primitive.
+ * </ol>
+ */
+final class BindingIndex {
+  private static final String SUFFIX = "_BindingIndex";
+  private static final BindingIndex MISSING = new BindingIndex(new Entry[0]);
+  private static final ClassCache<BindingIndex> INDICES = ClassCache.create(BindingIndex::load);
+
+  /**
+   * Returns the index for the methods declared by {@code cls}, or null if it was not compiled with
+   * {@code reflect-compiler}.
+   */
+  static @Nullable BindingIndex get(Class<?> cls) {
+    BindingIndex index = INDICES.get(cls);
+    return index != MISSING ? index : null;
+  }
+
+  private static BindingIndex load(Class<?> cls) {
+    String name = cls.getName();
+    int packageEnd = name.lastIndexOf('.') + 1;
+    String indexName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_');
+    Object bindings;
+    try {
+      Class<?> index = Class.forName(indexName + SUFFIX, true, cls.getClassLoader());
+      bindings = index.getField("BINDINGS").get(null);
+    } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException ignored) {
+      return MISSING; // Not compiled with reflect-compiler.
+    }
+    if (!(bindings instanceof String[])) {
+      return MISSING;
+    }
+    String[] lines = (String[]) bindings;
+    Entry[] entries = new Entry[lines.length];
+    for (int i = 0; i < lines.length; i++) {
+      String[] fields = lines[i].split(" ");
+      if (fields.length < 4) {
+        throw new IllegalStateException(
+            "Binding index for " + cls.getName() + " has a malformed entry: " + lines[i]);
+      }
+      entries[i] =
+          new Entry(
+              fields[0].charAt(0),
+              fields[1],
+              fields[2],
+              fields[3].equals("-") ? null : fields[3],
+              Arrays.copyOfRange(fields, 4, fields.length));
+    }
+    return new BindingIndex(entries);
+  }
+
+  final Entry[] entries;
+
+  private BindingIndex(Entry[] entries) {
+    this.entries = entries;
+  }
+
+  static final class Entry {
+    private final char kind;
+    private final String flags;
+    private final String name;
+    /** The binary name of the raw return type with primitives boxed, or null if not a class. */
+    final @Nullable String rawType;
+
+    private final String[] parameterTypes;
+
+    Entry(char kind, String flags, String name, @Nullable String rawType, String[] parameterTypes) {
+      this.kind = kind;
+      this.flags = flags;
+      this.name = name;
+      this.rawType = rawType;
+      this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * True for a unique, unscoped {@code @Provides} or {@code @Binds} method which can be left
+     * unparsed until a key with its {@link #rawType} is requested.
+     */
+    boolean isLazy() {
+      return (kind == 'P' || kind == 'B')
+          && rawType != null
+          && flags.indexOf('S') == -1
+          && flags.indexOf('E') == -1
+          && flags.indexOf('K') == -1
+          && flags.indexOf('C') == -1
+          && flags.indexOf('X') == -1;
+    }
+
+    /** Returns the method declared by {@code target} which this entry describes. */
+    Method findMethod(Class<?> target) {
+      try {
+        Class<?>[] parameterClasses = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+          parameterClasses[i] = loadClass(parameterTypes[i], target.getClassLoader());
+        }
+        return target.getDeclaredMethod(name, parameterClasses);
+      } catch (ClassNotFoundException | NoSuchMethodException e) {
+        throw new IllegalStateException(
+            "Binding index for "
+                + target.getName()
+                + " is out of date. Recompile the module with reflect-compiler: "
+                + name,
+            e);
+      }
+    }
+
+    private static Class<?> loadClass(String name, @Nullable ClassLoader loader)
+        throws ClassNotFoundException {
+      switch (name) {
+        case "boolean":
+          return boolean.class;
+        case "byte":
+          return byte.class;
+        case "char":
+          return char.class;
+        case "short":
+          return short.class;
+        case "int":
+          return int.class;
+        case "long":
+          return long.class;
+        case "float":
+          return float.class;
+        case "double":
+          return double.class;
+        default:
+          return Class.forName(name, false, loader);
+      }
+    }
+  }
+}
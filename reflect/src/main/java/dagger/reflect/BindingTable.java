@@ -0,0 +1,109 @@
+package dagger.reflect;
+
+import dagger.reflect.Binding.LinkedBinding;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable snapshot of the linked bindings of a {@link Scope} in an open-addressing hash table.
+ * The hash of each key is stored alongside it so that a probe compares an int before calling {@link
+ * Key#equals}. Every field is final so an instance can be shared between threads through a plain
+ * field, and lookups involve no volatile reads or locking.
+ */
+final class BindingTable {
+  /**
+   * Returns a table of the bindings in {@code previous}, if any, and those in {@code added}. Keys
+   * which are in both keep the binding from {@code previous}.
+   */
+  static BindingTable create(@Nullable BindingTable previous, Map<Key, LinkedBinding<?>> added) {
+    // The map may be concurrently modified. Bindings beyond the counted size are left out.
+    int size = (previous != null ? previous.size : 0) + added.size();
+    // Keep the load factor at or below one half so that most lookups take a single probe.
+    int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    int[] hashes = new int[capacity];
+    Key[] keys = new Key[capacity];
+    LinkedBinding<?>[] values = new LinkedBinding<?>[capacity];
+    int count = 0;
+    if (previous != null) {
+      for (int index = 0; index < previous.keys.length; index++) {
+        Key key = previous.keys[index];
+        if (key != null
+            && insert(hashes, keys, values, previous.hashes[index], key, previous.values[index])) {
+          count++;
+        }
+      }
+    }
+    for (Map.Entry<Key, LinkedBinding<?>> entry : added.entrySet()) {
+      if (count == size) {
+        break;
+      }
+      Key key = entry.getKey();
+      if (insert(hashes, keys, values, key.hashCode(), key, entry.getValue())) {
+        count++;
+      }
+    }
+    return new BindingTable(hashes, keys, values, count);
+  }
+
+  /** Add {@code key} to the arrays of a table being created unless it is already present. */
+  private static boolean insert(
+      int[] hashes,
+      @Nullable Key[] keys,
+      @Nullable LinkedBinding<?>[] values,
+      int hash,
+      Key key,
+      @Nullable LinkedBinding<?> value) {
+    int mask = keys.length - 1;
+    for (int index = spread(hash) & mask; ; index = (index + 1) & mask) {
+      Key candidate = keys[index];
+      if (candidate == null) {
+        hashes[index] = hash;
+        keys[index] = key;
+        values[index] = value;
+        return true;
+      }
+      if (hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+        return false;
+      }
+    }
+  }
+
+  private final int[] hashes;
+  private final @Nullable Key[] keys;
+  private final @Nullable LinkedBinding<?>[] values;
+  private final int size;
+
+  private BindingTable(
+      int[] hashes, @Nullable Key[] keys, @Nullable LinkedBinding<?>[] values, int size) {
+    this.hashes = hashes;
+    this.keys = keys;
+    this.values = values;
+    this.size = size;
+  }
+
+  /** The number of bindings in this table. */
+  int size() {
+    return size;
+  }
+
+  @Nullable
+  LinkedBinding<?> get(Key key) {
+    int hash = key.hashCode();
+    Key[] keys = this.keys;
+    int mask = keys.length - 1;
+    for (int index = spread(hash) & mask; ; index = (index + 1) & mask) {
+      Key candidate = keys[index];
+      if (candidate == null) {
+        return null;
+      }
+      if (hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+        return values[index];
+      }
+    }
+  }
+
+  /** Mix the high bits into the low bits which select a slot. */
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
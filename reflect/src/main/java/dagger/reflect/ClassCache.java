@@ -0,0 +1,91 @@
+package dagger.reflect;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * A value lazily computed once per class. Backed by {@link ClassValue} where it exists so that the
+ * value does not prevent the class from being unloaded. Otherwise (Android) a synchronized weak map
+ * is used. Values which reference their class will retain it in that case, but Android does not
+ * unload classes anyway.
+ */
+abstract class ClassCache<V> {
+  private static final boolean HAS_CLASS_VALUE = hasClassValue();
+
+  interface Factory<V> {
+    V create(Class<?> cls);
+  }
+
+  static <V> ClassCache<V> create(Factory<V> factory) {
+    return HAS_CLASS_VALUE ? new ClassValueCache<>(factory) : new WeakMapCache<>(factory);
+  }
+
+  abstract V get(Class<?> cls);
+
+  private static boolean hasClassValue() {
+    try {
+      Class.forName("java.lang.ClassValue");
+      return true;
+    } catch (ClassNotFoundException ignored) {
+      return false;
+    }
+  }
+
+  @IgnoreJRERequirement // Only created when ClassValue is present at runtime.
+  private static final class ClassValueCache<V> extends ClassCache<V> {
+    private final FactoryClassValue<V> values;
+
+    ClassValueCache(Factory<V> factory) {
+      values = new FactoryClassValue<>(factory);
+    }
+
+    @Override
+    V get(Class<?> cls) {
+      return values.get(cls);
+    }
+  }
+
+  @IgnoreJRERequirement // Only created when ClassValue is present at runtime.
+  private static final class FactoryClassValue<V> extends ClassValue<V> {
+    private final Factory<V> factory;
+
+    FactoryClassValue(Factory<V> factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    protected V computeValue(Class<?> type) {
+      return factory.create(type);
+    }
+  }
+
+  private static final class WeakMapCache<V> extends ClassCache<V> {
+    private final Factory<V> factory;
+    private final Map<Class<?>, V> values = new WeakHashMap<>();
+
+    WeakMapCache(Factory<V> factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    V get(Class<?> cls) {
+      synchronized (values) {
+        V value = values.get(cls);
+        if (value != null) {
+          return value;
+        }
+      }
+      // Computed without holding the lock so that factories may use other caches.
+      V value = factory.create(cls);
+      synchronized (values) {
+        V existing = values.get(cls);
+        if (existing != null) {
+          return existing; // You raced another thread and lost.
+        }
+        values.put(cls, value);
+        return value;
+      }
+    }
+  }
+}
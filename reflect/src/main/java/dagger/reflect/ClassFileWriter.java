@@ -0,0 +1,445 @@
+package dagger.reflect;
+
+import static dagger.reflect.Reflection.boxIfNecessary;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A minimal writer for Java 8 class files. It supports only what the classes generated at runtime
+ * need: fields, and methods with straight-line code. Since method bodies never branch, no stack map
+ * frames are written.
+ */
+final class ClassFileWriter {
+  static final int ACC_PUBLIC = 0x0001;
+  static final int ACC_PRIVATE = 0x0002;
+  static final int ACC_FINAL = 0x0010;
+  static final int ACC_SUPER = 0x0020;
+
+  static final String OBJECT = "java/lang/Object";
+
+  private final String name;
+  private final Bytes pool = new Bytes();
+  private final Map<String, Integer> poolIndices = new HashMap<>();
+  private int poolCount = 1;
+  private final Bytes fields = new Bytes();
+  private int fieldCount;
+  private final Bytes methods = new Bytes();
+  private int methodCount;
+
+  /** @param name The binary name of the class, using either dots or slashes. */
+  ClassFileWriter(String name) {
+    this.name = name.replace('.', '/');
+  }
+
+  /** The internal name of the class being written. */
+  String name() {
+    return name;
+  }
+
+  void field(int access, String fieldName, String descriptor) {
+    fields.u2(access);
+    fields.u2(utf8(fieldName));
+    fields.u2(utf8(descriptor));
+    fields.u2(0); // Attributes.
+    fieldCount++;
+  }
+
+  Code code() {
+    return new Code();
+  }
+
+  void method(String methodName, String descriptor, Code code, int maxStack, int maxLocals) {
+    methods.u2(ACC_PUBLIC);
+    methods.u2(utf8(methodName));
+    methods.u2(utf8(descriptor));
+    methods.u2(1); // Attributes.
+    methods.u2(utf8("Code"));
+    methods.u4(12 + code.size());
+    methods.u2(maxStack);
+    methods.u2(maxLocals);
+    methods.u4(code.size());
+    methods.write(code);
+    methods.u2(0); // Exception table.
+    methods.u2(0); // Attributes.
+    methodCount++;
+  }
+
+  byte[] toByteArray(String superName, String... interfaceNames) {
+    int thisClass = classRef(name);
+    int superClass = classRef(superName);
+    int[] interfaces = new int[interfaceNames.length];
+    for (int i = 0; i < interfaceNames.length; i++) {
+      interfaces[i] = classRef(interfaceNames[i]);
+    }
+
+    Bytes out = new Bytes();
+    out.u4(0xCAFEBABE);
+    out.u2(0); // Minor version.
+    out.u2(52); // Java 8.
+    out.u2(poolCount);
+    out.write(pool);
+    out.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    out.u2(thisClass);
+    out.u2(superClass);
+    out.u2(interfaces.length);
+    for (int index : interfaces) {
+      out.u2(index);
+    }
+    out.u2(fieldCount);
+    out.write(fields);
+    out.u2(methodCount);
+    out.write(methods);
+    out.u2(0); // Attributes.
+    return out.toByteArray();
+  }
+
+  static String internalName(Class<?> cls) {
+    return cls.getName().replace('.', '/');
+  }
+
+  static String descriptor(Class<?> cls) {
+    if (cls.isArray()) return internalName(cls);
+    if (cls == void.class) return "V";
+    if (cls == boolean.class) return "Z";
+    if (cls == byte.class) return "B";
+    if (cls == char.class) return "C";
+    if (cls == short.class) return "S";
+    if (cls == int.class) return "I";
+    if (cls == long.class) return "J";
+    if (cls == float.class) return "F";
+    if (cls == double.class) return "D";
+    return 'L' + internalName(cls) + ';';
+  }
+
+  static String methodDescriptor(Method method) {
+    return methodDescriptor(method.getParameterTypes(), method.getReturnType());
+  }
+
+  static String methodDescriptor(Constructor<?> constructor) {
+    return methodDescriptor(constructor.getParameterTypes(), void.class);
+  }
+
+  static String methodDescriptor(Class<?>[] parameterTypes, Class<?> returnType) {
+    StringBuilder builder = new StringBuilder().append('(');
+    for (Class<?> parameterType : parameterTypes) {
+      builder.append(descriptor(parameterType));
+    }
+    return builder.append(')').append(descriptor(returnType)).toString();
+  }
+
+  /** The number of local variable or operand stack slots used by a value of {@code type}. */
+  static int slots(Class<?> type) {
+    return type == long.class || type == double.class ? 2 : 1;
+  }
+
+  private int utf8(String value) {
+    String key = "Utf8 " + value;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    pool.u1(1); // CONSTANT_Utf8
+    pool.utf(value);
+    return add(key);
+  }
+
+  private int string(String value) {
+    String key = "String " + value;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    int valueIndex = utf8(value);
+    pool.u1(8); // CONSTANT_String
+    pool.u2(valueIndex);
+    return add(key);
+  }
+
+  private int integer(int value) {
+    String key = "Integer " + value;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    pool.u1(3); // CONSTANT_Integer
+    pool.u4(value);
+    return add(key);
+  }
+
+  private int classRef(String internalName) {
+    String key = "Class " + internalName;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    int nameIndex = utf8(internalName);
+    pool.u1(7); // CONSTANT_Class
+    pool.u2(nameIndex);
+    return add(key);
+  }
+
+  /** @param tag 9 for a field, 10 for a class method, or 11 for an interface method. */
+  private int memberRef(int tag, String owner, String memberName, String descriptor) {
+    String key = tag + " " + owner + ' ' + memberName + ' ' + descriptor;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    int classIndex = classRef(owner);
+    int nameAndTypeIndex = nameAndType(memberName, descriptor);
+    pool.u1(tag);
+    pool.u2(classIndex);
+    pool.u2(nameAndTypeIndex);
+    return add(key);
+  }
+
+  private int nameAndType(String memberName, String descriptor) {
+    String key = "NameAndType " + memberName + ' ' + descriptor;
+    Integer index = poolIndices.get(key);
+    if (index != null) {
+      return index;
+    }
+    int nameIndex = utf8(memberName);
+    int descriptorIndex = utf8(descriptor);
+    pool.u1(12); // CONSTANT_NameAndType
+    pool.u2(nameIndex);
+    pool.u2(descriptorIndex);
+    return add(key);
+  }
+
+  private int add(String key) {
+    int index = poolCount;
+    poolIndices.put(key, index);
+    poolCount++;
+    return index;
+  }
+
+  /** The bytecode of a single method. Each instruction method is named after its opcode. */
+  final class Code extends Bytes {
+    Code() {}
+
+    Code op(int opcode) {
+      u1(opcode);
+      return this;
+    }
+
+    Code aload(int slot) {
+      if (slot <= 3) {
+        u1(0x2a + slot); // aload_<n>
+      } else {
+        local(0x19, slot);
+      }
+      return this;
+    }
+
+    Code astore(int slot) {
+      if (slot <= 3) {
+        u1(0x4b + slot); // astore_<n>
+      } else {
+        local(0x3a, slot);
+      }
+      return this;
+    }
+
+    /** Load the local at {@code slot} using the instruction for {@code type}. */
+    Code load(Class<?> type, int slot) {
+      int opcode;
+      if (type == long.class) {
+        opcode = 0x16; // lload
+      } else if (type == float.class) {
+        opcode = 0x17; // fload
+      } else if (type == double.class) {
+        opcode = 0x18; // dload
+      } else if (type.isPrimitive()) {
+        opcode = 0x15; // iload
+      } else {
+        opcode = 0x19; // aload
+      }
+      return local(opcode, slot);
+    }
+
+    /** An instruction which takes a local variable index, widened if it does not fit in a byte. */
+    private Code local(int opcode, int slot) {
+      if (slot <= 0xff) {
+        u1(opcode);
+        u1(slot);
+      } else {
+        u1(0xc4); // wide
+        u1(opcode);
+        u2(slot);
+      }
+      return this;
+    }
+
+    Code pushInt(int value) {
+      if (value >= -1 && value <= 5) {
+        u1(0x03 + value); // iconst_m1 or iconst_<n>
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        u1(0x10); // bipush
+        u1(value);
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        u1(0x11); // sipush
+        u2(value);
+      } else {
+        constant(integer(value));
+      }
+      return this;
+    }
+
+    Code ldc(String value) {
+      return constant(string(value));
+    }
+
+    /** Push the constant pool entry at {@code index}, which must not be a long or double. */
+    private Code constant(int index) {
+      if (index <= 0xff) {
+        u1(0x12); // ldc
+        u1(index);
+      } else {
+        u1(0x13); // ldc_w
+        u2(index);
+      }
+      return this;
+    }
+
+    Code typeOp(int opcode, String internalName) {
+      int index = classRef(internalName);
+      u1(opcode);
+      u2(index);
+      return this;
+    }
+
+    Code checkcast(String internalName) {
+      return typeOp(0xc0, internalName);
+    }
+
+    Code getfield(String owner, String fieldName, String descriptor) {
+      int index = memberRef(9, owner, fieldName, descriptor);
+      u1(0xb4);
+      u2(index);
+      return this;
+    }
+
+    Code putfield(String owner, String fieldName, String descriptor) {
+      int index = memberRef(9, owner, fieldName, descriptor);
+      u1(0xb5);
+      u2(index);
+      return this;
+    }
+
+    Code invokevirtual(String owner, String methodName, String descriptor) {
+      int index = memberRef(10, owner, methodName, descriptor);
+      u1(0xb6);
+      u2(index);
+      return this;
+    }
+
+    Code invokespecial(String owner, String methodName, String descriptor) {
+      int index = memberRef(10, owner, methodName, descriptor);
+      u1(0xb7);
+      u2(index);
+      return this;
+    }
+
+    Code invokestatic(String owner, boolean isInterface, String methodName, String descriptor) {
+      int index = memberRef(isInterface ? 11 : 10, owner, methodName, descriptor);
+      u1(0xb8);
+      u2(index);
+      return this;
+    }
+
+    /** @param argumentSlots The slots used by the receiver and arguments. */
+    Code invokeinterface(String owner, String methodName, String descriptor, int argumentSlots) {
+      int index = memberRef(11, owner, methodName, descriptor);
+      u1(0xb9);
+      u2(index);
+      u1(argumentSlots);
+      u1(0);
+      return this;
+    }
+
+    /** Convert the {@code Object} on top of the stack to {@code type}, unboxing primitives. */
+    Code cast(Class<?> type) {
+      if (type.isPrimitive()) {
+        String boxed = internalName((Class<?>) boxIfNecessary(type));
+        checkcast(boxed);
+        invokevirtual(boxed, type.getName() + "Value", "()" + descriptor(type));
+      } else if (type != Object.class) {
+        checkcast(internalName(type));
+      }
+      return this;
+    }
+
+    /** Box the value of {@code type} on top of the stack if it is primitive. */
+    Code box(Class<?> type) {
+      if (type.isPrimitive()) {
+        Class<?> boxed = (Class<?>) boxIfNecessary(type);
+        String valueOf = "(" + descriptor(type) + ")" + descriptor(boxed);
+        invokestatic(internalName(boxed), false, "valueOf", valueOf);
+      }
+      return this;
+    }
+
+    /** Return the value of {@code type} on top of the stack. */
+    Code returnValue(Class<?> type) {
+      if (type == void.class) {
+        u1(0xb1); // return
+      } else if (type == long.class) {
+        u1(0xad); // lreturn
+      } else if (type == float.class) {
+        u1(0xae); // freturn
+      } else if (type == double.class) {
+        u1(0xaf); // dreturn
+      } else if (type.isPrimitive()) {
+        u1(0xac); // ireturn
+      } else {
+        u1(0xb0); // areturn
+      }
+      return this;
+    }
+  }
+
+  static class Bytes extends ByteArrayOutputStream {
+    void u1(int value) {
+      write(value);
+    }
+
+    void u2(int value) {
+      write(value >>> 8);
+      write(value);
+    }
+
+    void u4(int value) {
+      u2(value >>> 16);
+      u2(value);
+    }
+
+    void write(Bytes bytes) {
+      write(bytes.buf, 0, bytes.count);
+    }
+
+    /** Write {@code value} in the modified UTF-8 encoding, prefixed by its length. */
+    void utf(String value) {
+      Bytes encoded = new Bytes();
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c != 0 && c < 0x80) {
+          encoded.u1(c);
+        } else if (c < 0x800) {
+          encoded.u1(0xc0 | (c >> 6));
+          encoded.u1(0x80 | (c & 0x3f));
+        } else {
+          encoded.u1(0xe0 | (c >> 12));
+          encoded.u1(0x80 | ((c >> 6) & 0x3f));
+          encoded.u1(0x80 | (c & 0x3f));
+        }
+      }
+      u2(encoded.size());
+      write(encoded);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package dagger.reflect;
+
+import static dagger.reflect.ClassFileWriter.ACC_FINAL;
+import static dagger.reflect.ClassFileWriter.ACC_PRIVATE;
+import static dagger.reflect.ClassFileWriter.OBJECT;
+import static dagger.reflect.ClassFileWriter.internalName;
+import static dagger.reflect.ClassFileWriter.methodDescriptor;
+import static dagger.reflect.ClassFileWriter.slots;
+
+import dagger.reflect.ClassFileWriter.Code;
+import dagger.reflect.ComponentImplementation.Kind;
+import java.lang.reflect.Method;
+
+/**
+ * Writes the class file for a {@link ComponentImplementation}. The class has a field and a method
+ * for each implemented component method, and a constructor which takes the field values as an
+ * {@code Object[]} followed by the implemented methods as a {@code Method[]}.
+ *
+ * <p>Only public types are referenced so that the class can be defined in any class loader which
+ * can see the component.
+ */
+final class ComponentClassWriter {
+  static final Class<?>[] CONSTRUCTOR_PARAMETERS = {Object[].class, Method[].class};
+
+  private static final String PROVIDER = "javax/inject/Provider";
+  private static final String MEMBERS_INJECTOR = "dagger/MembersInjector";
+  private static final String INVOCATION_HANDLER = "java/lang/reflect/InvocationHandler";
+  private static final String METHODS_FIELD = "methods";
+  private static final String METHODS_DESCRIPTOR = "[Ljava/lang/reflect/Method;";
+
+  /**
+   * Write a class named {@code className} which implements or extends {@code component}. The method
+   * at each index of {@code methods} is implemented according to the kind at the same index of
+   * {@code kinds}.
+   */
+  static byte[] write(String className, Class<?> component, Method[] methods, Kind[] kinds) {
+    ClassFileWriter writer = new ClassFileWriter(className);
+
+    boolean forwards = false;
+    for (int i = 0; i < methods.length; i++) {
+      writer.field(ACC_PRIVATE | ACC_FINAL, fieldName(i), 'L' + fieldType(kinds[i]) + ';');
+      forwards |= kinds[i] == Kind.HANDLER;
+    }
+    if (forwards) {
+      writer.field(ACC_PRIVATE | ACC_FINAL, METHODS_FIELD, METHODS_DESCRIPTOR);
+    }
+
+    boolean isInterface = component.isInterface();
+    String superName = isInterface ? OBJECT : internalName(component);
+    writeConstructor(writer, superName, kinds, forwards);
+    for (int i = 0; i < methods.length; i++) {
+      switch (kinds[i]) {
+        case PROVISION:
+          writeProvisionMethod(writer, methods[i], i);
+          break;
+        case MEMBERS_INJECTION:
+          writeMembersInjectionMethod(writer, methods[i], i);
+          break;
+        case HANDLER:
+          writeHandlerMethod(writer, methods[i], i);
+          break;
+        default:
+          throw new AssertionError(kinds[i]);
+      }
+    }
+
+    return isInterface
+        ? writer.toByteArray(superName, internalName(component))
+        : writer.toByteArray(superName);
+  }
+
+  private static void writeConstructor(
+      ClassFileWriter writer, String superName, Kind[] kinds, boolean forwards) {
+    Code code = writer.code();
+    code.aload(0).invokespecial(superName, "<init>", "()V");
+    for (int i = 0; i < kinds.length; i++) {
+      String fieldType = fieldType(kinds[i]);
+      code.aload(0)
+          .aload(1)
+          .pushInt(i)
+          .op(0x32) // aaload
+          .checkcast(fieldType)
+          .putfield(writer.name(), fieldName(i), 'L' + fieldType + ';');
+    }
+    if (forwards) {
+      code.aload(0).aload(2).putfield(writer.name(), METHODS_FIELD, METHODS_DESCRIPTOR);
+    }
+    code.returnValue(void.class);
+    writer.method("<init>", "([Ljava/lang/Object;" + METHODS_DESCRIPTOR + ")V", code, 3, 3);
+  }
+
+  /** {@code return (R) this.field.get();} */
+  private static void writeProvisionMethod(ClassFileWriter writer, Method method, int index) {
+    Class<?> returnType = method.getReturnType();
+    Code code = writer.code();
+    code.aload(0)
+        .getfield(writer.name(), fieldName(index), 'L' + PROVIDER + ';')
+        .invokeinterface(PROVIDER, "get", "()Ljava/lang/Object;", 1)
+        .cast(returnType)
+        .returnValue(returnType);
+    writer.method(method.getName(), methodDescriptor(method), code, 2, 1);
+  }
+
+  /** {@code this.field.injectMembers(instance);} followed by returning the instance, if needed. */
+  private static void writeMembersInjectionMethod(
+      ClassFileWriter writer, Method method, int index) {
+    Class<?> returnType = method.getReturnType();
+    Code code = writer.code();
+    code.aload(0)
+        .getfield(writer.name(), fieldName(index), 'L' + MEMBERS_INJECTOR + ';')
+        .aload(1)
+        .invokeinterface(MEMBERS_INJECTOR, "injectMembers", "(Ljava/lang/Object;)V", 2);
+    if (returnType != void.class) {
+      code.aload(1);
+    }
+    code.returnValue(returnType);
+    writer.method(method.getName(), methodDescriptor(method), code, 2, 2);
+  }
+
+  /** {@code return (R) this.field.invoke(this, this.methods[index], new Object[] { args… });} */
+  private static void writeHandlerMethod(ClassFileWriter writer, Method method, int index) {
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    Class<?> returnType = method.getReturnType();
+
+    Code code = writer.code();
+    code.aload(0)
+        .getfield(writer.name(), fieldName(index), 'L' + INVOCATION_HANDLER + ';')
+        .aload(0)
+        .aload(0)
+        .getfield(writer.name(), METHODS_FIELD, METHODS_DESCRIPTOR)
+        .pushInt(index)
+        .op(0x32); // aaload
+    int locals = 1;
+    if (parameterTypes.length == 0) {
+      code.op(0x01); // aconst_null, matching what Proxy passes for no arguments.
+    } else {
+      code.pushInt(parameterTypes.length).typeOp(0xbd, OBJECT); // anewarray
+      for (int i = 0; i < parameterTypes.length; i++) {
+        Class<?> parameterType = parameterTypes[i];
+        code.op(0x59) // dup
+            .pushInt(i)
+            .load(parameterType, locals)
+            .box(parameterType)
+            .op(0x53); // aastore
+        locals += slots(parameterType);
+      }
+    }
+    code.invokeinterface(
+        INVOCATION_HANDLER,
+        "invoke",
+        "(Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;",
+        4);
+    if (returnType == void.class) {
+      code.op(0x57); // pop
+    } else {
+      code.cast(returnType);
+    }
+    code.returnValue(returnType);
+    writer.method(method.getName(), methodDescriptor(method), code, 8, locals);
+  }
+
+  private static String fieldName(int index) {
+    return "target" + index;
+  }
+
+  private static String fieldType(Kind kind) {
+    switch (kind) {
+      case PROVISION:
+        return PROVIDER;
+      case MEMBERS_INJECTION:
+        return MEMBERS_INJECTOR;
+      case HANDLER:
+        return INVOCATION_HANDLER;
+      default:
+        throw new AssertionError(kind);
+    }
+  }
+
+  private ComponentClassWriter() {
+    throw new AssertionError();
+  }
+}
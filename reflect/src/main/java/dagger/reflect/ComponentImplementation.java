@@ -0,0 +1,318 @@
+package dagger.reflect;
+
+import static dagger.reflect.Reflection.findQualifier;
+
+import dagger.MembersInjector;
+import dagger.Subcomponent;
+import dagger.reflect.Binding.LinkedBinding;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Provider;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A class generated at runtime which implements or extends a component. Provision and members
+ * injection methods read a final field holding their provider or injector and call it directly so,
+ * unlike with a {@link java.lang.reflect.Proxy}, a call involves no handler lookup or argument
+ * array. Every other method is forwarded to the component's {@link ComponentInvocationHandler}.
+ *
+ * <p>Abstract class components always use a generated class since a {@code Proxy} cannot extend a
+ * class. Interface components use one only when the {@code dagger.reflect.generatedComponents}
+ * system property is true when they are created. Classes are not generated on Android which cannot
+ * define class files.
+ */
+final class ComponentImplementation {
+  private static final boolean CAN_DEFINE_CLASSES =
+      !"Dalvik".equals(System.getProperty("java.vm.name"));
+  private static final ClassCache<ComponentImplementation> IMPLEMENTATIONS =
+      ClassCache.create(ComponentImplementation::create);
+
+  /** How a component method is implemented by the generated class. */
+  enum Kind {
+    /** Calls a {@link Provider} which supplies the binding for the return type. */
+    PROVISION,
+    /** Calls a {@link MembersInjector} for the parameter type. */
+    MEMBERS_INJECTION,
+    /** Forwards to an {@link InvocationHandler}. */
+    HANDLER
+  }
+
+  /**
+   * Returns the implementation to use for {@code cls}, or null if a {@code Proxy} should be used.
+   *
+   * @throws IllegalArgumentException if {@code cls} is an abstract class which cannot be extended
+   *     by a generated class.
+   */
+  static @Nullable ComponentImplementation find(Class<?> cls) {
+    if (!CAN_DEFINE_CLASSES
+        || (cls.isInterface() && !Boolean.getBoolean("dagger.reflect.generatedComponents"))) {
+      return null;
+    }
+    ComponentImplementation implementation = IMPLEMENTATIONS.get(cls);
+    String unsupportedReason = implementation.unsupportedReason;
+    if (unsupportedReason != null) {
+      if (cls.isInterface()) {
+        return null;
+      }
+      throw new IllegalArgumentException(unsupportedReason);
+    }
+    return implementation;
+  }
+
+  private static ComponentImplementation create(Class<?> cls) {
+    String name = cls.getCanonicalName();
+    if (!isPublic(cls)) {
+      return new ComponentImplementation(
+          name + " is not public. Only public abstract classes are supported.");
+    }
+    if (!cls.isInterface() && !hasAccessibleDefaultConstructor(cls)) {
+      return new ComponentImplementation(
+          name + " does not have a public or protected no-argument constructor.");
+    }
+
+    Map<String, Method> signatures = new LinkedHashMap<>();
+    for (Class<?> target = cls; target != null; target = target.getSuperclass()) {
+      for (Method method : target.getDeclaredMethods()) {
+        // Subclasses are visited first so overriding methods take precedence.
+        String signature = method.getName() + signature(method);
+        if (!method.isBridge() && !signatures.containsKey(signature)) {
+          signatures.put(signature, method);
+        }
+      }
+    }
+    for (Method method : cls.getMethods()) {
+      // Picks up abstract methods from interfaces which no class in the hierarchy declares.
+      String signature = method.getName() + signature(method);
+      if (!signatures.containsKey(signature)) {
+        signatures.put(signature, method);
+      }
+    }
+
+    List<Method> methods = new ArrayList<>();
+    for (Method method : signatures.values()) {
+      int modifiers = method.getModifiers();
+      if (!Modifier.isAbstract(modifiers) || Modifier.isStatic(modifiers)) {
+        continue;
+      }
+      if (method.getDeclaringClass().isInterface() && isObjectMethod(method)) {
+        continue; // Implemented by Object, matching what a Proxy does.
+      }
+      if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)) {
+        return new ComponentImplementation(
+            "Abstract method " + method + " must be public or protected to be implemented.");
+      }
+      Class<?> returnType = method.getReturnType();
+      if (!returnType.isPrimitive() && !isPublic(returnType)) {
+        return new ComponentImplementation(
+            "Return type of " + method + " must be public to be implemented.");
+      }
+      methods.add(method);
+    }
+
+    Method[] methodArray = methods.toArray(new Method[0]);
+    Kind[] kinds = new Kind[methodArray.length];
+    for (int i = 0; i < methodArray.length; i++) {
+      kinds[i] = kind(methodArray[i]);
+    }
+
+    String className = cls.getName() + "$$DaggerReflect";
+    byte[] bytes = ComponentClassWriter.write(className, cls, methodArray, kinds);
+    Class<?> implementationClass;
+    try {
+      implementationClass = new ComponentClassLoader(cls.getClassLoader()).define(className, bytes);
+    } catch (LinkageError e) {
+      return new ComponentImplementation("Unable to define implementation of " + name + ": " + e);
+    }
+
+    Constructor<?> constructor;
+    try {
+      constructor = implementationClass.getConstructor(ComponentClassWriter.CONSTRUCTOR_PARAMETERS);
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(e);
+    }
+    return new ComponentImplementation(Invoker.forConstructor(constructor), methodArray, kinds);
+  }
+
+  /** Mirrors the method shapes recognized by {@link ComponentInvocationHandler}. */
+  static Kind kind(Method method) {
+    Type returnType = method.getGenericReturnType();
+    Class<?>[] parameterTypes = method.getParameterTypes();
+
+    if (returnType instanceof Class<?>) {
+      Class<?> returnClass = (Class<?>) returnType;
+      if (returnClass.getAnnotation(Subcomponent.class) != null
+          || returnClass.getAnnotation(Subcomponent.Builder.class) != null
+          || returnClass.getAnnotation(Subcomponent.Factory.class) != null) {
+        return Kind.HANDLER;
+      }
+    }
+    if (parameterTypes.length == 0 && returnType != void.class) {
+      return Kind.PROVISION;
+    }
+    if (parameterTypes.length == 1
+        && !parameterTypes[0].isPrimitive()
+        && (returnType == void.class || method.getReturnType().equals(parameterTypes[0]))) {
+      return Kind.MEMBERS_INJECTION;
+    }
+    // Unsupported shapes are forwarded so the handler can report them when called.
+    return Kind.HANDLER;
+  }
+
+  private static boolean isPublic(Class<?> cls) {
+    while (cls.isArray()) {
+      cls = cls.getComponentType();
+    }
+    for (Class<?> target = cls; target != null; target = target.getEnclosingClass()) {
+      if (!target.isPrimitive() && !Modifier.isPublic(target.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasAccessibleDefaultConstructor(Class<?> cls) {
+    for (Constructor<?> constructor : cls.getDeclaredConstructors()) {
+      int modifiers = constructor.getModifiers();
+      if (constructor.getParameterTypes().length == 0
+          && (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isObjectMethod(Method method) {
+    try {
+      Object.class.getMethod(method.getName(), method.getParameterTypes());
+      return true;
+    } catch (NoSuchMethodException ignored) {
+      return false;
+    }
+  }
+
+  private static String signature(Method method) {
+    String descriptor = ClassFileWriter.methodDescriptor(method);
+    return descriptor.substring(0, descriptor.indexOf(')') + 1);
+  }
+
+  private final @Nullable String unsupportedReason;
+  private final @Nullable Invoker constructor;
+  private final Method[] methods;
+  private final Kind[] kinds;
+
+  private ComponentImplementation(Invoker constructor, Method[] methods, Kind[] kinds) {
+    this.unsupportedReason = null;
+    this.constructor = constructor;
+    this.methods = methods;
+    this.kinds = kinds;
+  }
+
+  private ComponentImplementation(String unsupportedReason) {
+    this.unsupportedReason = unsupportedReason;
+    this.constructor = null;
+    this.methods = new Method[0];
+    this.kinds = new Kind[0];
+  }
+
+  <C> C newInstance(Class<C> cls, Scope scope, InvocationHandler handler) {
+    Object[] targets = new Object[methods.length];
+    for (int i = 0; i < methods.length; i++) {
+      switch (kinds[i]) {
+        case PROVISION:
+          targets[i] = new ProvisionProvider(scope, methods[i]);
+          break;
+        case MEMBERS_INJECTION:
+          targets[i] = new LazyMembersInjector(scope, methods[i].getParameterTypes()[0]);
+          break;
+        case HANDLER:
+          targets[i] = handler;
+          break;
+        default:
+          throw new AssertionError(kinds[i]);
+      }
+    }
+    Invoker constructor = this.constructor;
+    assert constructor != null; // Only supported implementations are returned by find().
+    return cls.cast(constructor.invoke(targets, methods));
+  }
+
+  /**
+   * Resolves the binding for a provision method on first use so that, as with a {@code Proxy},
+   * missing bindings are reported when the method is called rather than when the component is
+   * created.
+   */
+  private static final class ProvisionProvider implements Provider<Object> {
+    private final Scope scope;
+    private final Method method;
+    /**
+     * Resolved on first use. Volatile so that a binding resolved by one thread is safely published
+     * to others. Racing threads resolve the same binding from the scope.
+     */
+    private volatile @Nullable LinkedBinding<?> binding;
+
+    ProvisionProvider(Scope scope, Method method) {
+      this.scope = scope;
+      this.method = method;
+    }
+
+    @Override
+    public @Nullable Object get() {
+      LinkedBinding<?> binding = this.binding;
+      if (binding == null) {
+        Key key =
+            Key.of(findQualifier(method.getDeclaredAnnotations()), method.getGenericReturnType());
+        binding = scope.getBinding(key);
+        this.binding = binding;
+      }
+      return binding.get();
+    }
+  }
+
+  /** Creates the members injector for a members injection method on first use. */
+  private static final class LazyMembersInjector implements MembersInjector<Object> {
+    private final Scope scope;
+    private final Class<?> cls;
+    /**
+     * Created on first use. Volatile so that an injector created by one thread is safely published
+     * to others. Racing threads create equivalent injectors.
+     */
+    private volatile @Nullable MembersInjector<Object> delegate;
+
+    LazyMembersInjector(Scope scope, Class<?> cls) {
+      this.scope = scope;
+      this.cls = cls;
+    }
+
+    @Override
+    public void injectMembers(Object instance) {
+      MembersInjector<Object> delegate = this.delegate;
+      if (delegate == null) {
+        // RedundantCast: see https://youtrack.jetbrains.com/issue/IDEA-206560
+        @SuppressWarnings({"unchecked", "RedundantCast"})
+        MembersInjector<Object> injector =
+            (MembersInjector<Object>) ReflectiveMembersInjector.create(cls, scope);
+        delegate = injector;
+        this.delegate = delegate;
+      }
+      delegate.injectMembers(instance);
+    }
+  }
+
+  /** Each generated class gets its own loader so that it can be unloaded with its component. */
+  private static final class ComponentClassLoader extends ClassLoader {
+    ComponentClassLoader(@Nullable ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String name, byte[] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+}
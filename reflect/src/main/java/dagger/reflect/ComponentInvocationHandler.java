@@ -23,8 +23,11 @@ import dagger.Subcomponent;
 import dagger.reflect.Binding.LinkedBinding;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.Nullable;
 
 final class ComponentInvocationHandler implements InvocationHandler {
@@ -39,18 +42,41 @@ final class ComponentInvocationHandler implements InvocationHandler {
     scopeBuilder.addBinding(componentKey, componentBinding);
 
     Scope scope = scopeBuilder.build();
-    C instance = newProxy(cls, new ComponentInvocationHandler(scope));
+    ComponentInvocationHandler handler =
+        new ComponentInvocationHandler(scope, METHOD_TABLES.get(cls));
+    ComponentImplementation implementation = ComponentImplementation.find(cls);
+    C instance =
+        implementation != null
+            ? implementation.newInstance(cls, scope, handler)
+            : newProxy(cls, handler);
     componentBinding.setValue(instance);
 
+    // When set, the handler for every method is created as part of creating the component rather
+    // than on each method's first call.
+    Executor executor = Parallel.executorFor("dagger.reflect.eagerMethods");
+    if (executor != null) {
+      handler.createHandlers(executor, implementation != null);
+      // Every method has linked its bindings so later lookups can use an immutable table.
+      scope.seal();
+    }
+
     return instance;
   }
 
-  private final Scope scope;
-  private final ConcurrentHashMap<Method, MethodInvocationHandler> handlers =
-      new ConcurrentHashMap<>();
+  private static final ClassCache<MethodTable> METHOD_TABLES = ClassCache.create(MethodTable::new);
 
-  private ComponentInvocationHandler(Scope scope) {
+  private final Scope scope;
+  private final MethodTable methodTable;
+  /**
+   * Handlers indexed by {@link MethodTable#index}. Entries are created lazily and are not volatile.
+   * Racing threads create equivalent handlers.
+   */
+  private final @Nullable MethodInvocationHandler[] handlers;
+
+  private ComponentInvocationHandler(Scope scope, MethodTable methodTable) {
     this.scope = scope;
+    this.methodTable = methodTable;
+    this.handlers = new MethodInvocationHandler[methodTable.methods.length];
   }
 
   @Override
@@ -59,17 +85,50 @@ final class ComponentInvocationHandler implements InvocationHandler {
       return method.invoke(this, args);
     }
 
-    MethodInvocationHandler handler = handlers.get(method);
+    int index = methodTable.index(method);
+    if (index < 0) {
+      return createMethodInvocationHandler(method, scope).invoke(args);
+    }
+    MethodInvocationHandler handler = handlers[index];
     if (handler == null) {
       handler = createMethodInvocationHandler(method, scope);
-      MethodInvocationHandler replaced = handlers.putIfAbsent(method, handler);
-      if (replaced != null) {
-        handler = replaced;
-      }
+      handlers[index] = handler;
     }
     return handler.invoke(args);
   }
 
+  /**
+   * Create the handler for every abstract method using {@code executor}. The calling thread also
+   * creates handlers and only waits for those already started on the executor, so this completes
+   * even if the executor never runs the submitted tasks.
+   *
+   * <p>A method whose handler cannot be created gets one which throws the failure when called, so
+   * that an invalid method only fails if it is used. When {@code generated} the component is a
+   * {@link ComponentImplementation} and methods which it does not forward are skipped.
+   */
+  private void createHandlers(Executor executor, boolean generated) {
+    Method[] methods = methodTable.methods;
+    Parallel.forEach(
+        executor,
+        methods.length,
+        index -> {
+          Method method = methods[index];
+          if (!Modifier.isAbstract(method.getModifiers())
+              || (generated
+                  && ComponentImplementation.kind(method)
+                      != ComponentImplementation.Kind.HANDLER)) {
+            return;
+          }
+          MethodInvocationHandler handler;
+          try {
+            handler = createMethodInvocationHandler(method, scope);
+          } catch (RuntimeException e) {
+            handler = new FailedMethodInvocationHandler(e);
+          }
+          handlers[index] = handler;
+        });
+  }
+
   private static ComponentInvocationHandler.MethodInvocationHandler createMethodInvocationHandler(
       Method method, Scope scope) {
     Type returnType = method.getGenericReturnType();
@@ -212,4 +271,114 @@ final class ComponentInvocationHandler implements InvocationHandler {
       return ComponentFactoryInvocationHandler.forSubcomponentFactory(cls, scope);
     }
   }
+
+  /** Throws the failure from creating a method's handler when the component was created. */
+  private static final class FailedMethodInvocationHandler implements MethodInvocationHandler {
+    private final RuntimeException failure;
+
+    FailedMethodInvocationHandler(RuntimeException failure) {
+      this.failure = failure;
+    }
+
+    @Override
+    public Object invoke(Object[] args) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Maps the {@link Method} instances passed to {@link #invoke} to a dense index. A proxy class and
+   * a {@link ComponentImplementation} each pass the same instances on every call, so after the
+   * first call of each method the index is found by identity without calling {@link
+   * Method#hashCode()} or {@link Method#equals(Object)}.
+   */
+  private static final class MethodTable {
+    /** Every method which may be passed to a handler, in index order. */
+    final Method[] methods;
+
+    private volatile IdentityTable table = new IdentityTable(16);
+
+    MethodTable(Class<?> cls) {
+      Set<Method> methods = new LinkedHashSet<>();
+      for (Method method : cls.getMethods()) {
+        if (!Modifier.isStatic(method.getModifiers())
+            && method.getDeclaringClass() != Object.class) {
+          methods.add(method);
+        }
+      }
+      for (Class<?> target = cls; target != null; target = target.getSuperclass()) {
+        for (Method method : target.getDeclaredMethods()) {
+          if (Modifier.isAbstract(method.getModifiers())) {
+            methods.add(method); // Non-public abstract methods of abstract classes.
+          }
+        }
+      }
+      this.methods = methods.toArray(new Method[0]);
+    }
+
+    /** Returns the index of {@code method} in {@link #methods}, or -1 if absent. */
+    int index(Method method) {
+      IdentityTable table = this.table;
+      Method[] keys = table.keys;
+      int mask = keys.length - 1;
+      for (int i = System.identityHashCode(method) & mask; ; i = (i + 1) & mask) {
+        Method key = keys[i];
+        if (key == method) {
+          return table.indices[i];
+        }
+        if (key == null) {
+          return learn(method);
+        }
+      }
+    }
+
+    private synchronized int learn(Method method) {
+      int index = -1;
+      for (int i = 0; i < methods.length; i++) {
+        if (methods[i].equals(method)) {
+          index = i;
+          break;
+        }
+      }
+      IdentityTable table = this.table;
+      // Keep the table at most half full so that probing always reaches an empty slot.
+      int capacity = table.keys.length;
+      if ((table.size + 1) * 2 > capacity) {
+        capacity *= 2;
+      }
+      IdentityTable copy = new IdentityTable(capacity);
+      for (int i = 0; i < table.keys.length; i++) {
+        Method key = table.keys[i];
+        if (key != null) {
+          copy.put(key, table.indices[i]);
+        }
+      }
+      copy.put(method, index);
+      this.table = copy;
+      return index;
+    }
+  }
+
+  /** An open-addressed identity map from {@link Method} to index. Immutable once published. */
+  private static final class IdentityTable {
+    final @Nullable Method[] keys;
+    final int[] indices;
+    int size;
+
+    IdentityTable(int capacity) {
+      keys = new Method[capacity];
+      indices = new int[capacity];
+    }
+
+    void put(Method method, int index) {
+      int mask = keys.length - 1;
+      int i = System.identityHashCode(method) & mask;
+      while (keys[i] != null) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = method;
+      indices[i] = index;
+      size++;
+    }
+  }
 }
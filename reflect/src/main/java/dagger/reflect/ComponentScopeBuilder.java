@@ -7,6 +7,7 @@ import static dagger.reflect.Reflection.requireAnnotation;
 import dagger.Component;
 import dagger.Module;
 import dagger.Subcomponent;
+import dagger.reflect.Binding.UnlinkedBinding;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
 import java.util.Collections;
@@ -15,69 +16,65 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Collects the instances supplied for one component or subcomponent and then creates its {@link
+ * Scope.Builder}.
+ *
+ * <p>Everything derived from the component's annotations, such as its transitive modules and the
+ * builders or factories of the subcomponents they declare, is computed once per component class in
+ * a {@link Template}. Each new instance only allocates room for the modules, dependencies, and
+ * bound instances it is given.
+ */
 final class ComponentScopeBuilder {
+  private static final ReflectiveJustInTimeLookupFactory REFLECTIVE_JIT_LOOKUP_FACTORY =
+      new ReflectiveJustInTimeLookupFactory();
+  private static final MembersInjectorJustInTimeFactory MEMBERS_INJECTOR_JIT_FACTORY =
+      new MembersInjectorJustInTimeFactory();
+
+  private static final ClassCache<Template> COMPONENT_TEMPLATES =
+      ClassCache.create(
+          componentClass -> {
+            Component component = requireAnnotation(componentClass, Component.class);
+            Set<Annotation> scopeAnnotations = findScopes(componentClass.getDeclaredAnnotations());
+            return Template.create(component.modules(), component.dependencies(), scopeAnnotations);
+          });
+  private static final ClassCache<Template> SUBCOMPONENT_TEMPLATES =
+      ClassCache.create(
+          subcomponentClass -> {
+            Subcomponent subcomponent = requireAnnotation(subcomponentClass, Subcomponent.class);
+            Set<Annotation> scopeAnnotations =
+                findScopes(subcomponentClass.getDeclaredAnnotations());
+            return Template.create(subcomponent.modules(), new Class<?>[0], scopeAnnotations);
+          });
+
   static ComponentScopeBuilder buildComponent(Class<?> componentClass) {
-    Component component = requireAnnotation(componentClass, Component.class);
-    Set<Annotation> scopeAnnotation = findScopes(componentClass.getDeclaredAnnotations());
-    return create(component.modules(), component.dependencies(), scopeAnnotation, null);
+    return new ComponentScopeBuilder(COMPONENT_TEMPLATES.get(componentClass), null);
   }
 
   static ComponentScopeBuilder buildSubcomponent(Class<?> subcomponentClass, Scope parent) {
-    Subcomponent subcomponent = requireAnnotation(subcomponentClass, Subcomponent.class);
-    Set<Annotation> scopeAnnotation = findScopes(subcomponentClass.getDeclaredAnnotations());
-    return create(subcomponent.modules(), new Class<?>[0], scopeAnnotation, parent);
+    return new ComponentScopeBuilder(SUBCOMPONENT_TEMPLATES.get(subcomponentClass), parent);
   }
 
-  static ComponentScopeBuilder create(
-      Class<?>[] moduleClasses,
-      Class<?>[] dependencyClasses,
-      Set<Annotation> scopeAnnotations,
-      @Nullable Scope parent) {
-    Map<Class<?>, Object> moduleInstances = new LinkedHashMap<>();
-    Set<Class<?>> subcomponentClasses = new LinkedHashSet<>();
-
-    Deque<Class<?>> moduleClassQueue = new ArrayDeque<>();
-    Collections.addAll(moduleClassQueue, moduleClasses);
-    while (!moduleClassQueue.isEmpty()) {
-      Class<?> moduleClass = moduleClassQueue.removeFirst();
-      Module module = requireAnnotation(moduleClass, Module.class);
-
-      Collections.addAll(moduleClassQueue, module.includes());
-      Collections.addAll(subcomponentClasses, module.subcomponents());
-
-      // Start with all modules bound to null. Any remaining nulls will be assumed stateless.
-      moduleInstances.put(moduleClass, null);
-    }
-
-    Map<Class<?>, Object> dependencyInstances = new LinkedHashMap<>();
-    for (Class<?> dependencyClass : dependencyClasses) {
-      // Start with all dependencies as null. Any remaining nulls at creation time is an error.
-      dependencyInstances.put(dependencyClass, null);
-    }
-
-    return new ComponentScopeBuilder(
-        moduleInstances, dependencyInstances, subcomponentClasses, scopeAnnotations, parent);
+  static ComponentScopeBuilder create(Template template, @Nullable Scope parent) {
+    return new ComponentScopeBuilder(template, parent);
   }
 
   private final Map<Key, Object> boundInstances = new LinkedHashMap<>();
-  private final Map<Class<?>, Object> moduleInstances;
-  private final Map<Class<?>, Object> dependencyInstances;
-  private final Set<Class<?>> subcomponentClasses;
-  private final Set<Annotation> scopeAnnotations;
+  private final Template template;
+  /** Instances for each of the template's modules. Any remaining nulls are assumed stateless. */
+  private final @Nullable Object[] moduleInstances;
+  /** Instances for each of the template's dependencies. Any remaining nulls are an error. */
+  private final @Nullable Object[] dependencyInstances;
+
   private final @Nullable Scope parent;
 
-  private ComponentScopeBuilder(
-      Map<Class<?>, Object> moduleInstances,
-      Map<Class<?>, Object> dependencyInstances,
-      Set<Class<?>> subcomponentClasses,
-      Set<Annotation> scopeAnnotations,
-      @Nullable Scope parent) {
-    this.moduleInstances = moduleInstances;
-    this.dependencyInstances = dependencyInstances;
-    this.subcomponentClasses = subcomponentClasses;
-    this.scopeAnnotations = scopeAnnotations;
+  private ComponentScopeBuilder(Template template, @Nullable Scope parent) {
+    this.template = template;
+    this.moduleInstances = new Object[template.moduleClasses.length];
+    this.dependencyInstances = new Object[template.dependencyClasses.length];
     this.parent = parent;
   }
 
@@ -87,80 +84,182 @@ final class ComponentScopeBuilder {
 
   /** @throws IllegalArgumentException when {@code moduleClass} is not in expected set. */
   void setModule(Class<?> moduleClass, Object instance) {
-    if (moduleInstances.containsKey(moduleClass)) {
-      moduleInstances.put(moduleClass, instance);
+    Integer index = template.moduleIndices.get(moduleClass);
+    if (index != null) {
+      moduleInstances[index] = instance;
     } else {
       throw new IllegalArgumentException(
           "Module "
               + moduleClass.getName()
               + " not in expected transitive set: "
-              + moduleInstances.keySet());
+              + template.moduleIndices.keySet());
     }
   }
 
   /** @throws IllegalArgumentException when {@code dependencyClass} is not in expected set. */
   void setDependency(Class<?> dependencyClass, Object instance) {
-    if (dependencyInstances.containsKey(dependencyClass)) {
-      dependencyInstances.put(dependencyClass, instance);
+    Integer index = template.dependencyIndices.get(dependencyClass);
+    if (index != null) {
+      dependencyInstances[index] = instance;
     } else {
       throw new IllegalArgumentException(
           "Dependency "
               + dependencyClass.getName()
               + " not in expected transitive set: "
-              + dependencyInstances.keySet());
+              + template.dependencyIndices.keySet());
     }
   }
 
   Scope.Builder get() {
+    Template template = this.template;
     Scope.Builder scopeBuilder =
-        new Scope.Builder(parent, scopeAnnotations)
-            .addJustInTimeLookupFactory(new ReflectiveJustInTimeLookupFactory())
-            .addJustInTimeLookupFactory(new MembersInjectorJustInTimeFactory());
+        new Scope.Builder(parent, template.scopeAnnotations)
+            .addJustInTimeLookupFactory(REFLECTIVE_JIT_LOOKUP_FACTORY)
+            .addJustInTimeLookupFactory(MEMBERS_INJECTOR_JIT_FACTORY);
 
     for (Map.Entry<Key, Object> entry : boundInstances.entrySet()) {
       scopeBuilder.addInstance(entry.getKey(), entry.getValue());
     }
 
-    for (Map.Entry<Class<?>, Object> entry : moduleInstances.entrySet()) {
-      ReflectiveModuleParser.parse(entry.getKey(), entry.getValue(), scopeBuilder);
+    Class<?>[] moduleClasses = template.moduleClasses;
+    Executor executor = Parallel.executorFor("dagger.reflect.parallelModuleParsing");
+    if (executor != null && !template.modulesPrepared) {
+      ReflectiveModuleParser.prepare(moduleClasses, executor);
+      template.modulesPrepared = true;
+    }
+    for (int i = 0; i < moduleClasses.length; i++) {
+      ReflectiveModuleParser.parse(moduleClasses[i], moduleInstances[i], scopeBuilder);
     }
 
-    for (Map.Entry<Class<?>, Object> entry : dependencyInstances.entrySet()) {
-      Class<?> type = entry.getKey();
-      Object instance = entry.getValue();
+    Class<?>[] dependencyClasses = template.dependencyClasses;
+    for (int i = 0; i < dependencyClasses.length; i++) {
+      Class<?> type = dependencyClasses[i];
+      Object instance = dependencyInstances[i];
       if (instance == null) {
         throw new IllegalStateException(type.getCanonicalName() + " must be set");
       }
       ReflectiveDependencyParser.parse(type, instance, scopeBuilder);
     }
 
-    for (Class<?> subcomponentClass : subcomponentClasses) {
-      Class<?> builderClass =
-          findEnclosedAnnotatedClass(subcomponentClass, Subcomponent.Builder.class);
-      Class<?> factoryClass =
-          findEnclosedAnnotatedClass(subcomponentClass, Subcomponent.Factory.class);
-
-      if (builderClass != null && factoryClass != null) {
-        throw new IllegalStateException(
-            "@Subcomponent has more than one @Subcomponent.Builder or @Subcomponent.Factory: ["
-                + builderClass.getCanonicalName()
-                + ", "
-                + factoryClass.getCanonicalName()
-                + "]");
-      } else if (builderClass != null) {
-        scopeBuilder.addBinding(
-            Key.of(null, builderClass), UnlinkedSubcomponentBinding.forBuilder(builderClass));
-      } else if (factoryClass != null) {
-        scopeBuilder.addBinding(
-            Key.of(null, factoryClass), UnlinkedSubcomponentBinding.forFactory(factoryClass));
-      } else {
-        throw new IllegalStateException(
-            subcomponentClass.getCanonicalName()
-                + " doesn't have a @Subcomponent.Builder or @Subcomponent.Factory,"
-                + " which is required when used with @Module.subcomponents");
-      }
+    String subcomponentError = template.subcomponentError;
+    if (subcomponentError != null) {
+      throw new IllegalStateException(subcomponentError);
+    }
+    Key[] subcomponentKeys = template.subcomponentKeys;
+    for (int i = 0; i < subcomponentKeys.length; i++) {
+      // Subcomponent bindings only capture their builder or factory class so they can be shared.
+      scopeBuilder.addBinding(subcomponentKeys[i], template.subcomponentBindings[i]);
     }
 
     return scopeBuilder;
   }
+
+  /** The parts of a component's scope which do not depend on the instances given to it. */
+  static final class Template {
+    static Template create(
+        Class<?>[] rootModuleClasses,
+        Class<?>[] dependencyClasses,
+        Set<Annotation> scopeAnnotations) {
+      Set<Class<?>> moduleClasses = new LinkedHashSet<>();
+      Set<Class<?>> subcomponentClasses = new LinkedHashSet<>();
+
+      Deque<Class<?>> moduleClassQueue = new ArrayDeque<>();
+      Collections.addAll(moduleClassQueue, rootModuleClasses);
+      while (!moduleClassQueue.isEmpty()) {
+        Class<?> moduleClass = moduleClassQueue.removeFirst();
+        Module module = requireAnnotation(moduleClass, Module.class);
+
+        Collections.addAll(moduleClassQueue, module.includes());
+        Collections.addAll(subcomponentClasses, module.subcomponents());
+
+        moduleClasses.add(moduleClass);
+      }
+
+      Set<Class<?>> uniqueDependencyClasses = new LinkedHashSet<>();
+      Collections.addAll(uniqueDependencyClasses, dependencyClasses);
+
+      // Problems with subcomponents are only reported once a component is created.
+      String subcomponentError = null;
+      Key[] subcomponentKeys = new Key[subcomponentClasses.size()];
+      UnlinkedBinding[] subcomponentBindings = new UnlinkedBinding[subcomponentClasses.size()];
+      int index = 0;
+      for (Class<?> subcomponentClass : subcomponentClasses) {
+        Class<?> builderClass =
+            findEnclosedAnnotatedClass(subcomponentClass, Subcomponent.Builder.class);
+        Class<?> factoryClass =
+            findEnclosedAnnotatedClass(subcomponentClass, Subcomponent.Factory.class);
+
+        if (builderClass != null && factoryClass != null) {
+          subcomponentError =
+              "@Subcomponent has more than one @Subcomponent.Builder or @Subcomponent.Factory: ["
+                  + builderClass.getCanonicalName()
+                  + ", "
+                  + factoryClass.getCanonicalName()
+                  + "]";
+          break;
+        } else if (builderClass != null) {
+          subcomponentKeys[index] = Key.of(null, builderClass);
+          subcomponentBindings[index] = UnlinkedSubcomponentBinding.forBuilder(builderClass);
+        } else if (factoryClass != null) {
+          subcomponentKeys[index] = Key.of(null, factoryClass);
+          subcomponentBindings[index] = UnlinkedSubcomponentBinding.forFactory(factoryClass);
+        } else {
+          subcomponentError =
+              subcomponentClass.getCanonicalName()
+                  + " doesn't have a @Subcomponent.Builder or @Subcomponent.Factory,"
+                  + " which is required when used with @Module.subcomponents";
+          break;
+        }
+        index++;
+      }
+
+      return new Template(
+          moduleClasses.toArray(new Class<?>[0]),
+          uniqueDependencyClasses.toArray(new Class<?>[0]),
+          scopeAnnotations,
+          subcomponentKeys,
+          subcomponentBindings,
+          subcomponentError);
+    }
+
+    /** Every module transitively included by the component, in breadth-first order. */
+    final Class<?>[] moduleClasses;
+
+    final Map<Class<?>, Integer> moduleIndices;
+    final Class<?>[] dependencyClasses;
+    final Map<Class<?>, Integer> dependencyIndices;
+    final Set<Annotation> scopeAnnotations;
+    final Key[] subcomponentKeys;
+    /** Bindings for the builder or factory of the subcomponent whose key is at the same index. */
+    final UnlinkedBinding[] subcomponentBindings;
+
+    final @Nullable String subcomponentError;
+    /** True once {@link #moduleClasses} have been parsed in parallel. Races parse them twice. */
+    boolean modulesPrepared;
+
+    private Template(
+        Class<?>[] moduleClasses,
+        Class<?>[] dependencyClasses,
+        Set<Annotation> scopeAnnotations,
+        Key[] subcomponentKeys,
+        UnlinkedBinding[] subcomponentBindings,
+        @Nullable String subcomponentError) {
+      this.moduleClasses = moduleClasses;
+      this.moduleIndices = indices(moduleClasses);
+      this.dependencyClasses = dependencyClasses;
+      this.dependencyIndices = indices(dependencyClasses);
+      this.scopeAnnotations = scopeAnnotations;
+      this.subcomponentKeys = subcomponentKeys;
+      this.subcomponentBindings = subcomponentBindings;
+      this.subcomponentError = subcomponentError;
+    }
+
+    private static Map<Class<?>, Integer> indices(Class<?>[] classes) {
+      Map<Class<?>, Integer> indices = new LinkedHashMap<>();
+      for (int i = 0; i < classes.length; i++) {
+        indices.put(classes[i], i);
+      }
+      return Collections.unmodifiableMap(indices);
+    }
+  }
 }
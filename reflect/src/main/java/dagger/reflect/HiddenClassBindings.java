@@ -0,0 +1,299 @@
+package dagger.reflect;
+
+import static dagger.reflect.Reflection.hasCheckedException;
+import static java.lang.invoke.MethodType.methodType;
+
+import dagger.MembersInjector;
+import dagger.reflect.Binding.LinkedBinding;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bindings and members injectors implemented by hidden classes defined alongside their target. Each
+ * class calls its {@code @Provides} method, {@code @Inject} constructor, or injected members with
+ * plain bytecode so that the JIT sees a direct call, the same as code generated by Dagger.
+ *
+ * <p>{@code MethodHandles.Lookup.defineHiddenClass} was added in Java 15 so it is looked up
+ * reflectively, which keeps this library compiling against Java 8. Hidden classes are nestmates of
+ * their target's declaring class and are unloaded with it. When they are unavailable, or a target
+ * cannot be reached from a hidden class, each method returns null so that callers fall back to an
+ * {@link Invoker}. Targets which declare checked exceptions also fall back, since the classes would
+ * let those exceptions through rather than wrap them like an {@link Invoker}.
+ */
+@IgnoreJRERequirement // Only used when defineHiddenClass is present at runtime.
+final class HiddenClassBindings {
+  private static final LinkedBinding<?>[] NO_BINDINGS = new LinkedBinding<?>[0];
+  private static final @Nullable Method PRIVATE_LOOKUP_IN;
+  private static final @Nullable Method DEFINE_HIDDEN_CLASS;
+  private static final @Nullable Object NESTMATE_OPTIONS;
+
+  static {
+    Method privateLookupIn = null;
+    Method defineHiddenClass = null;
+    Object nestmateOptions = null;
+    try {
+      privateLookupIn =
+          MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+      Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      Class<?> classOptions = Array.newInstance(classOption, 0).getClass();
+      defineHiddenClass =
+          MethodHandles.Lookup.class.getMethod(
+              "defineHiddenClass", byte[].class, boolean.class, classOptions);
+      nestmateOptions = Array.newInstance(classOption, 1);
+      Array.set(nestmateOptions, 0, enumConstant(classOption, "NESTMATE"));
+    } catch (ClassNotFoundException | NoSuchMethodException | NoClassDefFoundError ignored) {
+      // Before Java 15 or on Android.
+    }
+    PRIVATE_LOOKUP_IN = privateLookupIn;
+    DEFINE_HIDDEN_CLASS = defineHiddenClass;
+    NESTMATE_OPTIONS = nestmateOptions;
+  }
+
+  /** Placeholder for classes which could not be defined so that they are not attempted again. */
+  private static final Object NOT_DEFINED = new Object();
+
+  /**
+   * The constructors of the classes defined for each host, or {@link #NOT_DEFINED}, keyed by their
+   * {@link Kind} and target.
+   */
+  private static final ClassCache<ConcurrentHashMap<List<Object>, Object>> DEFINED =
+      ClassCache.create(host -> new ConcurrentHashMap<>());
+
+  /** True when hidden classes can be defined. */
+  static final boolean AVAILABLE = NESTMATE_OPTIONS != null;
+
+  /** Returns a binding which calls the {@code @Provides} method on {@code instance}, or null. */
+  static <T> @Nullable LinkedBinding<T> tryCreateProvides(
+      @Nullable Object instance, Method method, LinkedBinding<?>[] dependencies) {
+    return tryCreateForMethod(Kind.PROVIDES, instance, method, dependencies);
+  }
+
+  /** Returns a binding which calls a provision method of a component dependency, or null. */
+  static <T> @Nullable LinkedBinding<T> tryCreateDependencyProvision(
+      Object instance, Method method) {
+    return tryCreateForMethod(Kind.DEPENDENCY_PROVISION, instance, method, NO_BINDINGS);
+  }
+
+  private static <T> @Nullable LinkedBinding<T> tryCreateForMethod(
+      Kind kind, @Nullable Object instance, Method method, LinkedBinding<?>[] dependencies) {
+    Class<?> owner = method.getDeclaringClass();
+    if (!canReach(owner, method.getParameterTypes())
+        || hasCheckedException(method.getExceptionTypes())) {
+      return null;
+    }
+    MethodHandle constructor =
+        define(
+            owner,
+            Arrays.asList(kind, method),
+            () -> {
+              String description =
+                  kind == Kind.PROVIDES
+                      ? "@Provides[" + owner.getName() + '.' + method.getName() + "(…)]"
+                      : LinkedDependencyProvisionBinding.describe(method);
+              return BindingClassWriter.writeProvides(className(owner), method, description);
+            });
+    if (constructor == null) {
+      return null;
+    }
+    Object[] fieldValues = dependencies;
+    if (!Modifier.isStatic(method.getModifiers())) {
+      fieldValues = new Object[dependencies.length + 1];
+      System.arraycopy(dependencies, 0, fieldValues, 0, dependencies.length);
+      fieldValues[dependencies.length] = instance;
+    }
+    return newInstance(constructor, fieldValues);
+  }
+
+  /**
+   * Returns a binding which calls {@code constructor} and then {@code membersInjector} on the new
+   * instance, or null.
+   */
+  static <T> @Nullable LinkedBinding<T> tryCreateJustInTime(
+      Constructor<T> constructor,
+      LinkedBinding<?>[] dependencies,
+      MembersInjector<T> membersInjector,
+      boolean injectsMembers) {
+    Class<T> owner = constructor.getDeclaringClass();
+    if (Modifier.isAbstract(owner.getModifiers())
+        || !canReach(owner, constructor.getParameterTypes())
+        || hasCheckedException(constructor.getExceptionTypes())) {
+      return null;
+    }
+    Kind kind = injectsMembers ? Kind.JUST_IN_TIME_INJECTING_MEMBERS : Kind.JUST_IN_TIME;
+    MethodHandle factory =
+        define(
+            owner,
+            Arrays.asList(kind, constructor),
+            () -> {
+              String description = "@Inject[" + owner.getName() + ".<init>(…)]";
+              return BindingClassWriter.writeConstructor(
+                  className(owner), constructor, injectsMembers, description);
+            });
+    if (factory == null) {
+      return null;
+    }
+    Object[] fieldValues = dependencies;
+    if (injectsMembers) {
+      fieldValues = new Object[dependencies.length + 1];
+      System.arraycopy(dependencies, 0, fieldValues, 0, dependencies.length);
+      fieldValues[dependencies.length] = membersInjector;
+    }
+    return newInstance(factory, fieldValues);
+  }
+
+  /**
+   * Returns an injector which sets {@code fields} and then calls {@code methods}, all declared by
+   * {@code owner}, or null. {@code dependencies} supply each field and then each method parameter
+   * in order.
+   */
+  static @Nullable MembersInjector<Object> tryCreateMembersInjector(
+      Class<?> owner, Field[] fields, Method[] methods, LinkedBinding<?>[] dependencies) {
+    for (Field field : fields) {
+      // Final fields can only be assigned by their declaring class.
+      if (Modifier.isFinal(field.getModifiers()) || !canReach(owner, field.getType())) {
+        return null;
+      }
+    }
+    for (Method method : methods) {
+      if (!canReach(owner, method.getParameterTypes())
+          || hasCheckedException(method.getExceptionTypes())) {
+        return null;
+      }
+    }
+    // The injected members are always the same for one class so its key needs no member.
+    MethodHandle constructor =
+        define(
+            owner,
+            Collections.singletonList(Kind.MEMBERS_INJECTOR),
+            () ->
+                BindingClassWriter.writeMembersInjector(
+                    className(owner), owner, fields, methods, dependencies.length));
+    if (constructor == null) {
+      return null;
+    }
+    return newInstance(constructor, dependencies);
+  }
+
+  /**
+   * Returns the constructor of the class defined for {@code key} in {@code host}, defining it from
+   * {@code bytes} the first time. Classes only hold the values passed to their constructor so one
+   * is shared by every component which links the same target. Returns null if the class could not
+   * be defined, which is also remembered.
+   */
+  private static @Nullable MethodHandle define(Class<?> host, List<Object> key, ClassBytes bytes) {
+    ConcurrentHashMap<List<Object>, Object> defined = DEFINED.get(host);
+    Object constructor = defined.get(key);
+    if (constructor == null) {
+      constructor = defineHiddenClass(host, bytes.write());
+      Object existing = defined.putIfAbsent(key, constructor);
+      if (existing != null) {
+        constructor = existing; // Another thread won the race. Its class will be used everywhere.
+      }
+    }
+    return constructor != NOT_DEFINED ? (MethodHandle) constructor : null;
+  }
+
+  /** Returns the constructor of a hidden class nested in {@code host} or {@link #NOT_DEFINED}. */
+  private static Object defineHiddenClass(Class<?> host, byte[] bytes) {
+    Method privateLookupIn = PRIVATE_LOOKUP_IN;
+    Method defineHiddenClass = DEFINE_HIDDEN_CLASS;
+    if (privateLookupIn == null || defineHiddenClass == null) {
+      return NOT_DEFINED;
+    }
+    try {
+      MethodHandles.Lookup hostLookup =
+          (MethodHandles.Lookup) privateLookupIn.invoke(null, host, MethodHandles.lookup());
+      MethodHandles.Lookup lookup =
+          (MethodHandles.Lookup)
+              defineHiddenClass.invoke(hostLookup, bytes, true, NESTMATE_OPTIONS);
+      return lookup.findConstructor(
+          lookup.lookupClass(), methodType(void.class, BindingClassWriter.CONSTRUCTOR_PARAMETERS));
+    } catch (Throwable ignored) {
+      // Module boundaries or a security manager can prevent a class from being defined.
+      return NOT_DEFINED;
+    }
+  }
+
+  private static <T> @Nullable T newInstance(MethodHandle constructor, Object[] fieldValues) {
+    try {
+      @SuppressWarnings("unchecked") // The class implements the type requested by the caller.
+      T instance = (T) constructor.invoke(fieldValues);
+      return instance;
+    } catch (Throwable ignored) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns true if {@code types}, which must be cast to within a class nested in {@code host}, are
+   * accessible from it.
+   */
+  private static boolean canReach(Class<?> host, Class<?>... types) {
+    for (Class<?> type : types) {
+      while (type.isArray()) {
+        type = type.getComponentType();
+      }
+      if (type.isPrimitive() || isPublic(type)) {
+        continue;
+      }
+      if (type.getClassLoader() != host.getClassLoader() || !samePackage(type, host)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isPublic(Class<?> cls) {
+    for (Class<?> target = cls; target != null; target = target.getEnclosingClass()) {
+      if (!Modifier.isPublic(target.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean samePackage(Class<?> a, Class<?> b) {
+    String aName = a.getName();
+    String bName = b.getName();
+    int aDot = aName.lastIndexOf('.');
+    int bDot = bName.lastIndexOf('.');
+    return aDot == bDot && aName.regionMatches(0, bName, 0, Math.max(aDot, 0));
+  }
+
+  /** The kinds of class which can be defined for a target. */
+  private enum Kind {
+    PROVIDES,
+    DEPENDENCY_PROVISION,
+    JUST_IN_TIME,
+    JUST_IN_TIME_INJECTING_MEMBERS,
+    MEMBERS_INJECTOR
+  }
+
+  private interface ClassBytes {
+    byte[] write();
+  }
+
+  private static String className(Class<?> host) {
+    return host.getName() + "$$DaggerReflect";
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"}) // The type is only known at runtime.
+  private static Object enumConstant(Class<?> enumClass, String name) {
+    return Enum.valueOf((Class) enumClass, name);
+  }
+
+  private HiddenClassBindings() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,30 @@
+package dagger.reflect;
+
+/**
+ * How bindings and members injectors call the constructors, methods, and fields they target. The
+ * strategy is consulted when a binding is linked so changing it only affects components created
+ * afterwards.
+ *
+ * <p>The default is {@link #METHOD_HANDLES} on the JVM and {@link #REFLECTION} on Android, where
+ * method handles are not faster than reflection. It can be changed by setting the {@code
+ * dagger.reflect.invocationStrategy} system property to the name of a constant.
+ */
+enum InvocationStrategy {
+  /**
+   * Call targets with {@code Method.invoke}, {@code Constructor.newInstance}, and {@code
+   * Field.set}.
+   */
+  REFLECTION,
+  /**
+   * Call targets through method handles unreflected from them. Falls back to {@link #REFLECTION}
+   * where method handles are unavailable, such as Android before API 26.
+   */
+  METHOD_HANDLES,
+  /**
+   * Call targets from classes generated at runtime: constructor factories spun by {@code
+   * LambdaMetafactory}, and on Java 15 and newer, hidden classes implementing whole bindings and
+   * members injectors. Each target costs a class definition when linked but then costs the same as
+   * a direct call. Falls back to {@link #METHOD_HANDLES} where classes cannot be generated.
+   */
+  GENERATED
+}
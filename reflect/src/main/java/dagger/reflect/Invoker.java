@@ -0,0 +1,221 @@
+package dagger.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Calls a single method or constructor whose target has been resolved ahead of time.
+ * Implementations perform any accessibility changes and lookups when created so that each call only
+ * does the call itself.
+ *
+ * <p>The number of arguments supplied to a call must match the target's parameter count. The
+ * fixed-arity overloads let implementations avoid allocating an argument array.
+ */
+abstract class Invoker {
+  static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private static final boolean HAS_METHOD_HANDLES = hasMethodHandles();
+
+  /** Invokers for the members of each class which can be shared, indexed by strategy ordinal. */
+  private static final ClassCache<ConcurrentHashMap<Member, Invoker>[]> SHARED_INVOKERS =
+      ClassCache.create(cls -> newInvokerMaps());
+
+  /**
+   * True when bindings and members injectors should be implemented by {@link HiddenClassBindings}
+   * rather than by calling invokers.
+   */
+  static boolean usesHiddenClasses() {
+    return strategy() == InvocationStrategy.GENERATED && HiddenClassBindings.AVAILABLE;
+  }
+
+  private static boolean usesMethodHandles(InvocationStrategy strategy) {
+    return strategy != InvocationStrategy.REFLECTION && HAS_METHOD_HANDLES;
+  }
+
+  /**
+   * Create an invoker for {@code method} on {@code instance}. The receiver is bound into the
+   * invoker so only the method's own parameters are supplied to each call.
+   */
+  static Invoker forMethod(@Nullable Object instance, Method method) {
+    if (instance == null) {
+      return shared(method, Invoker::createForStaticMethod);
+    }
+    if (usesMethodHandles(strategy())) {
+      Invoker invoker = MethodHandleInvoker.tryCreate(instance, method);
+      if (invoker != null) {
+        return invoker;
+      }
+    }
+    return new ReflectiveInvoker.ForMethod(instance, method);
+  }
+
+  private static Invoker createForStaticMethod(Method method, InvocationStrategy strategy) {
+    if (usesMethodHandles(strategy)) {
+      Invoker invoker = MethodHandleInvoker.tryCreate(null, method);
+      if (invoker != null) {
+        return invoker;
+      }
+    }
+    return new ReflectiveInvoker.ForMethod(null, method);
+  }
+
+  /**
+   * Create an invoker for the instance method {@code method} whose receiver is supplied as the
+   * first argument of each call.
+   */
+  static Invoker forUnboundMethod(Method method) {
+    return shared(method, Invoker::createForUnboundMethod);
+  }
+
+  private static Invoker createForUnboundMethod(Method method, InvocationStrategy strategy) {
+    if (usesMethodHandles(strategy)) {
+      Invoker invoker = MethodHandleInvoker.tryCreateUnbound(method);
+      if (invoker != null) {
+        return invoker;
+      }
+    }
+    return new ReflectiveInvoker.ForUnboundMethod(method);
+  }
+
+  /**
+   * Create an invoker which sets the instance field {@code field}. Each call takes the receiver
+   * followed by the value and returns null.
+   */
+  static Invoker forFieldSetter(Field field) {
+    return shared(field, Invoker::createForFieldSetter);
+  }
+
+  private static Invoker createForFieldSetter(Field field, InvocationStrategy strategy) {
+    if (usesMethodHandles(strategy)) {
+      Invoker invoker = MethodHandleInvoker.tryCreateSetter(field);
+      if (invoker != null) {
+        return invoker;
+      }
+    }
+    return new ReflectiveInvoker.ForFieldSetter(field);
+  }
+
+  static Invoker forConstructor(Constructor<?> constructor) {
+    return shared(constructor, Invoker::createForConstructor);
+  }
+
+  private static Invoker createForConstructor(
+      Constructor<?> constructor, InvocationStrategy strategy) {
+    if (usesMethodHandles(strategy)) {
+      if (strategy == InvocationStrategy.GENERATED) {
+        Invoker invoker = LambdaInvoker.tryCreate(constructor);
+        if (invoker != null) {
+          return invoker;
+        }
+      }
+      Invoker invoker = MethodHandleInvoker.tryCreate(constructor);
+      if (invoker != null) {
+        return invoker;
+      }
+    }
+    return new ReflectiveInvoker.ForConstructor(constructor);
+  }
+
+  private interface Factory<M extends Member> {
+    Invoker create(M member, InvocationStrategy strategy);
+  }
+
+  /**
+   * Returns the invoker for {@code member} under the current strategy, creating it with {@code
+   * factory} the first time. Invokers which do not bind a receiver hold no per-component state so
+   * one is shared by every component which links the member. This avoids repeating lookups and, for
+   * generated invokers, defining a new class for each component instance.
+   */
+  private static <M extends Member> Invoker shared(M member, Factory<M> factory) {
+    InvocationStrategy strategy = strategy();
+    ConcurrentHashMap<Member, Invoker> invokers =
+        SHARED_INVOKERS.get(member.getDeclaringClass())[strategy.ordinal()];
+    Invoker invoker = invokers.get(member);
+    if (invoker == null) {
+      invoker = factory.create(member, strategy);
+      Invoker existing = invokers.putIfAbsent(member, invoker);
+      if (existing != null) {
+        invoker = existing;
+      }
+    }
+    return invoker;
+  }
+
+  abstract @Nullable Object invokeWithArguments(Object[] arguments);
+
+  @Nullable
+  Object invoke() {
+    return invokeWithArguments(NO_ARGUMENTS);
+  }
+
+  @Nullable
+  Object invoke(@Nullable Object a) {
+    return invokeWithArguments(new Object[] {a});
+  }
+
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b) {
+    return invokeWithArguments(new Object[] {a, b});
+  }
+
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c) {
+    return invokeWithArguments(new Object[] {a, b, c});
+  }
+
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c, @Nullable Object d) {
+    return invokeWithArguments(new Object[] {a, b, c, d});
+  }
+
+  /**
+   * The strategy named by the {@code dagger.reflect.invocationStrategy} system property, or the
+   * platform default. The property is read on each call so that changing it affects bindings linked
+   * afterwards.
+   */
+  private static InvocationStrategy strategy() {
+    String name = System.getProperty("dagger.reflect.invocationStrategy");
+    if (name != null) {
+      try {
+        return InvocationStrategy.valueOf(name.trim().toUpperCase(Locale.US));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "Unknown dagger.reflect.invocationStrategy \""
+                + name
+                + "\". Expected one of "
+                + Arrays.toString(InvocationStrategy.values()),
+            e);
+      }
+    }
+    if ("Dalvik".equals(System.getProperty("java.vm.name"))) {
+      return InvocationStrategy.REFLECTION; // ART does not compile method handle calls.
+    }
+    return InvocationStrategy.METHOD_HANDLES;
+  }
+
+  private static ConcurrentHashMap<Member, Invoker>[] newInvokerMaps() {
+    // Arrays of parameterized types cannot be created directly, only by casting a raw array.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ConcurrentHashMap<Member, Invoker>[] maps =
+        new ConcurrentHashMap[InvocationStrategy.values().length];
+    for (int i = 0; i < maps.length; i++) {
+      maps[i] = new ConcurrentHashMap<>();
+    }
+    return maps;
+  }
+
+  private static boolean hasMethodHandles() {
+    try {
+      Class.forName("java.lang.invoke.MethodHandles");
+      return true;
+    } catch (ClassNotFoundException ignored) {
+      return false; // Android before API 26.
+    }
+  }
+}
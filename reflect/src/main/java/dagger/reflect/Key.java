@@ -33,6 +33,20 @@ abstract class Key {
 
   abstract Type type();
 
+  /** Computed on first use like {@link String#hashCode()}. Keys are hashed on every lookup. */
+  private int hashCode;
+
+  @Override
+  public final int hashCode() {
+    int hashCode = this.hashCode;
+    if (hashCode == 0) {
+      Annotation qualifier = qualifier();
+      hashCode = 31 * (qualifier != null ? qualifier.hashCode() : 0) + type().hashCode();
+      this.hashCode = hashCode;
+    }
+    return hashCode;
+  }
+
   @Override
   public final String toString() {
     Annotation qualifier = qualifier();
@@ -0,0 +1,207 @@
+package dagger.reflect;
+
+import static dagger.reflect.Reflection.hasCheckedException;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link Invoker} which calls a constructor through a factory class spun by {@link
+ * LambdaMetafactory}. The spun class contains a direct {@code new} of the target type so, once
+ * warmed up, each call costs the same as a hand-written {@code new Foo(a, b)}.
+ *
+ * <p>The factory is defined with a private lookup into the target class which requires {@code
+ * MethodHandles.privateLookupIn} from Java 9. Constructors with more parameters than the largest
+ * factory interface, whose class cannot be accessed this way, or which declare checked exceptions
+ * are not supported.
+ */
+@IgnoreJRERequirement // Only created when java.lang.invoke is present at runtime.
+abstract class LambdaInvoker extends Invoker {
+  private static final @Nullable Method PRIVATE_LOOKUP_IN = findPrivateLookupIn();
+  private static final Class<?>[] FACTORY_TYPES = {
+    Factory0.class, Factory1.class, Factory2.class, Factory3.class, Factory4.class
+  };
+
+  /** Returns null if a factory could not be spun, in which case another invoker should be used. */
+  static @Nullable Invoker tryCreate(Constructor<?> constructor) {
+    Method privateLookupIn = PRIVATE_LOOKUP_IN;
+    if (privateLookupIn == null) {
+      return null;
+    }
+    Class<?>[] parameterTypes = constructor.getParameterTypes();
+    if (parameterTypes.length > FACTORY_TYPES.length
+        || hasCheckedException(constructor.getExceptionTypes())) {
+      return null;
+    }
+    Class<?> factoryType = FACTORY_TYPES[parameterTypes.length];
+    try {
+      MethodHandles.Lookup lookup =
+          (MethodHandles.Lookup)
+              privateLookupIn.invoke(null, constructor.getDeclaringClass(), MethodHandles.lookup());
+      MethodHandle target = lookup.unreflectConstructor(constructor);
+      // The factory methods are erased to Object. Boxing the instantiated type lets the spun class
+      // cast and unbox each argument before calling the constructor.
+      MethodType instantiatedType = target.type().wrap();
+      CallSite site =
+          LambdaMetafactory.metafactory(
+              lookup,
+              "create",
+              MethodType.methodType(factoryType),
+              instantiatedType.generic(),
+              target,
+              instantiatedType);
+      Object factory = site.getTarget().invoke();
+      return create(factory, parameterTypes.length);
+    } catch (Throwable ignored) {
+      // Lookup denied, class not visible from the target's loader, or the metafactory refused the
+      // target. The method handle invoker handles all of these cases.
+      return null;
+    }
+  }
+
+  /** Wraps {@code factory}, which implements the entry of {@link #FACTORY_TYPES} for its arity. */
+  private static Invoker create(Object factory, int arity) {
+    switch (arity) {
+      case 0:
+        return new Arity0((Factory0) factory);
+      case 1:
+        return new Arity1((Factory1) factory);
+      case 2:
+        return new Arity2((Factory2) factory);
+      case 3:
+        return new Arity3((Factory3) factory);
+      case 4:
+        return new Arity4((Factory4) factory);
+      default:
+        throw new AssertionError("Unsupported arity: " + arity);
+    }
+  }
+
+  private static @Nullable Method findPrivateLookupIn() {
+    try {
+      return MethodHandles.class.getMethod(
+          "privateLookupIn", Class.class, MethodHandles.Lookup.class);
+    } catch (NoSuchMethodException ignored) {
+      return null; // Java 8.
+    }
+  }
+
+  // These types are implemented by classes defined in the target's package and must be public.
+
+  public interface Factory0 {
+    Object create();
+  }
+
+  public interface Factory1 {
+    Object create(@Nullable Object a);
+  }
+
+  public interface Factory2 {
+    Object create(@Nullable Object a, @Nullable Object b);
+  }
+
+  public interface Factory3 {
+    Object create(@Nullable Object a, @Nullable Object b, @Nullable Object c);
+  }
+
+  public interface Factory4 {
+    Object create(@Nullable Object a, @Nullable Object b, @Nullable Object c, @Nullable Object d);
+  }
+
+  private static final class Arity0 extends LambdaInvoker {
+    private final Factory0 factory;
+
+    Arity0(Factory0 factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return factory.create();
+    }
+
+    @Override
+    Object invoke() {
+      return factory.create();
+    }
+  }
+
+  private static final class Arity1 extends LambdaInvoker {
+    private final Factory1 factory;
+
+    Arity1(Factory1 factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return factory.create(arguments[0]);
+    }
+
+    @Override
+    Object invoke(@Nullable Object a) {
+      return factory.create(a);
+    }
+  }
+
+  private static final class Arity2 extends LambdaInvoker {
+    private final Factory2 factory;
+
+    Arity2(Factory2 factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return factory.create(arguments[0], arguments[1]);
+    }
+
+    @Override
+    Object invoke(@Nullable Object a, @Nullable Object b) {
+      return factory.create(a, b);
+    }
+  }
+
+  private static final class Arity3 extends LambdaInvoker {
+    private final Factory3 factory;
+
+    Arity3(Factory3 factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return factory.create(arguments[0], arguments[1], arguments[2]);
+    }
+
+    @Override
+    Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c) {
+      return factory.create(a, b, c);
+    }
+  }
+
+  private static final class Arity4 extends LambdaInvoker {
+    private final Factory4 factory;
+
+    Arity4(Factory4 factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return factory.create(arguments[0], arguments[1], arguments[2], arguments[3]);
+    }
+
+    @Override
+    Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c, @Nullable Object d) {
+      return factory.create(a, b, c, d);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package dagger.reflect;
+
+import dagger.reflect.Binding.LinkedBinding;
+import java.lang.reflect.Method;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A binding which calls a provision method of a component dependency. The dependency instance is
+ * bound into the invoker so each call supplies no receiver or arguments.
+ */
+final class LinkedDependencyProvisionBinding<T> extends LinkedBinding<T> {
+  private final Method method;
+  private final Invoker invoker;
+
+  LinkedDependencyProvisionBinding(Object instance, Method method) {
+    this.method = method;
+    this.invoker = Invoker.forMethod(instance, method);
+  }
+
+  // The binding is associated with the return type of method as key.
+  @SuppressWarnings("unchecked")
+  @Override
+  public @Nullable T get() {
+    return (T) invoker.invoke();
+  }
+
+  @Override
+  public String toString() {
+    return describe(method);
+  }
+
+  static String describe(Method method) {
+    return "@Component.dependencies["
+        + method.getDeclaringClass().getName()
+        + '.'
+        + method.getName()
+        + "()]";
+  }
+}
@@ -1,38 +1,202 @@
 package dagger.reflect;
 
-import static dagger.reflect.Reflection.tryInstantiate;
-
 import dagger.MembersInjector;
 import dagger.reflect.Binding.LinkedBinding;
 import java.lang.reflect.Constructor;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A binding which calls an {@code @Inject} constructor and then injects members into the new
+ * instance. Subtypes are specialized by the number of dependencies so that the common arities hold
+ * their dependencies in fields and avoid allocating an argument array for each call.
+ *
+ * <p>Instances are only created by {@link #create}. The constructor is package-private and every
+ * subtype is private so the class cannot be extended outside this package.
+ */
+public abstract class LinkedJustInTimeBinding<T> extends LinkedBinding<T> {
+  static <T> LinkedJustInTimeBinding<T> create(
+      Constructor<T> constructor,
+      Invoker invoker,
+      LinkedBinding<?>[] dependencies,
+      MembersInjector<T> membersInjector) {
+    switch (dependencies.length) {
+      case 0:
+        return new Arity0<>(constructor, invoker, membersInjector);
+      case 1:
+        return new Arity1<>(constructor, invoker, membersInjector, dependencies[0]);
+      case 2:
+        return new Arity2<>(
+            constructor, invoker, membersInjector, dependencies[0], dependencies[1]);
+      case 3:
+        return new Arity3<>(
+            constructor,
+            invoker,
+            membersInjector,
+            dependencies[0],
+            dependencies[1],
+            dependencies[2]);
+      case 4:
+        return new Arity4<>(
+            constructor,
+            invoker,
+            membersInjector,
+            dependencies[0],
+            dependencies[1],
+            dependencies[2],
+            dependencies[3]);
+      default:
+        return new ArityN<>(constructor, invoker, membersInjector, dependencies);
+    }
+  }
 
-public final class LinkedJustInTimeBinding<T> extends LinkedBinding<T> {
   private final Constructor<T> constructor;
-  private final LinkedBinding<?>[] dependencies;
+  final Invoker invoker;
   private final MembersInjector<T> membersInjector;
 
   LinkedJustInTimeBinding(
-      Constructor<T> constructor,
-      LinkedBinding<?>[] dependencies,
-      MembersInjector<T> membersInjector) {
+      Constructor<T> constructor, Invoker invoker, MembersInjector<T> membersInjector) {
     this.constructor = constructor;
-    this.dependencies = dependencies;
+    this.invoker = invoker;
     this.membersInjector = membersInjector;
   }
 
-  @Override
-  public T get() {
-    Object[] arguments = new Object[dependencies.length];
-    for (int i = 0; i < dependencies.length; i++) {
-      arguments[i] = dependencies[i].get();
-    }
-    T instance = tryInstantiate(constructor, arguments);
-    membersInjector.injectMembers(instance);
-    return instance;
+  /** Inject members into {@code instance}, the result of calling {@link #invoker}. */
+  final T injectMembers(@Nullable Object instance) {
+    assert instance != null; // Constructors never return null.
+    // The invoker was created from a Constructor<T>.
+    @SuppressWarnings("unchecked")
+    T value = (T) instance;
+    membersInjector.injectMembers(value);
+    return value;
   }
 
   @Override
   public String toString() {
     return "@Inject[" + constructor.getDeclaringClass().getName() + ".<init>(…)]";
   }
+
+  private static final class Arity0<T> extends LinkedJustInTimeBinding<T> {
+    Arity0(Constructor<T> constructor, Invoker invoker, MembersInjector<T> membersInjector) {
+      super(constructor, invoker, membersInjector);
+    }
+
+    @Override
+    public T get() {
+      return injectMembers(invoker.invoke());
+    }
+  }
+
+  private static final class Arity1<T> extends LinkedJustInTimeBinding<T> {
+    private final LinkedBinding<?> dependency0;
+
+    Arity1(
+        Constructor<T> constructor,
+        Invoker invoker,
+        MembersInjector<T> membersInjector,
+        LinkedBinding<?> dependency0) {
+      super(constructor, invoker, membersInjector);
+      this.dependency0 = dependency0;
+    }
+
+    @Override
+    public T get() {
+      return injectMembers(invoker.invoke(dependency0.get()));
+    }
+  }
+
+  private static final class Arity2<T> extends LinkedJustInTimeBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+
+    Arity2(
+        Constructor<T> constructor,
+        Invoker invoker,
+        MembersInjector<T> membersInjector,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1) {
+      super(constructor, invoker, membersInjector);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+    }
+
+    @Override
+    public T get() {
+      return injectMembers(invoker.invoke(dependency0.get(), dependency1.get()));
+    }
+  }
+
+  private static final class Arity3<T> extends LinkedJustInTimeBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+    private final LinkedBinding<?> dependency2;
+
+    Arity3(
+        Constructor<T> constructor,
+        Invoker invoker,
+        MembersInjector<T> membersInjector,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1,
+        LinkedBinding<?> dependency2) {
+      super(constructor, invoker, membersInjector);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+      this.dependency2 = dependency2;
+    }
+
+    @Override
+    public T get() {
+      return injectMembers(invoker.invoke(dependency0.get(), dependency1.get(), dependency2.get()));
+    }
+  }
+
+  private static final class Arity4<T> extends LinkedJustInTimeBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+    private final LinkedBinding<?> dependency2;
+    private final LinkedBinding<?> dependency3;
+
+    Arity4(
+        Constructor<T> constructor,
+        Invoker invoker,
+        MembersInjector<T> membersInjector,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1,
+        LinkedBinding<?> dependency2,
+        LinkedBinding<?> dependency3) {
+      super(constructor, invoker, membersInjector);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+      this.dependency2 = dependency2;
+      this.dependency3 = dependency3;
+    }
+
+    @Override
+    public T get() {
+      return injectMembers(
+          invoker.invoke(
+              dependency0.get(), dependency1.get(), dependency2.get(), dependency3.get()));
+    }
+  }
+
+  private static final class ArityN<T> extends LinkedJustInTimeBinding<T> {
+    private final LinkedBinding<?>[] dependencies;
+
+    ArityN(
+        Constructor<T> constructor,
+        Invoker invoker,
+        MembersInjector<T> membersInjector,
+        LinkedBinding<?>[] dependencies) {
+      super(constructor, invoker, membersInjector);
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public T get() {
+      Object[] arguments = new Object[dependencies.length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = dependencies[i].get();
+      }
+      return injectMembers(invoker.invokeWithArguments(arguments));
+    }
+  }
 }
@@ -3,17 +3,20 @@ package dagger.reflect;
 import dagger.Lazy;
 import dagger.reflect.Binding.LinkedBinding;
 
+/**
+ * Supplies a new {@code Lazy<T>} for every injection since each caches its own value. They share
+ * one provider so that the binding for {@code T} is only looked up once.
+ */
 final class LinkedLazyBinding<T> extends LinkedBinding<Lazy<T>> {
-  private final Scope scope;
-  private final Key key;
+  private final ScopeKeyedProvider<T> provider;
+  private final boolean nonPinning = ScopedInstance.enabled();
 
   LinkedLazyBinding(Scope scope, Key key) {
-    this.scope = scope;
-    this.key = key;
+    this.provider = new ScopeKeyedProvider<>(scope, key);
   }
 
   @Override
   public Lazy<T> get() {
-    return new ScopeKeyedLazy<>(scope, key);
+    return new ScopeKeyedLazy<>(provider, nonPinning);
   }
 }
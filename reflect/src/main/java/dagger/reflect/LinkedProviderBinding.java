@@ -3,17 +3,19 @@ package dagger.reflect;
 import dagger.reflect.Binding.LinkedBinding;
 import javax.inject.Provider;
 
+/**
+ * Supplies the same provider for every injection of {@code Provider<T>}. The provider is stateless
+ * apart from caching the binding for {@code T} so one instance can be shared.
+ */
 final class LinkedProviderBinding<T> extends LinkedBinding<Provider<T>> {
-  private final Scope scope;
-  private final Key key;
+  private final ScopeKeyedProvider<T> provider;
 
   LinkedProviderBinding(Scope scope, Key key) {
-    this.scope = scope;
-    this.key = key;
+    this.provider = new ScopeKeyedProvider<>(scope, key);
   }
 
   @Override
   public Provider<T> get() {
-    return new ScopeKeyedProvider<>(scope, key);
+    return provider;
   }
 }
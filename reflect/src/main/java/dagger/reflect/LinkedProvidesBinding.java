@@ -1,36 +1,170 @@
 package dagger.reflect;
 
-import static dagger.reflect.Reflection.tryInvoke;
-
 import dagger.reflect.Binding.LinkedBinding;
 import java.lang.reflect.Method;
 import org.jetbrains.annotations.Nullable;
 
-public final class LinkedProvidesBinding<T> extends LinkedBinding<T> {
-  private final @Nullable Object instance;
+/**
+ * A binding which calls a {@code @Provides} method. Subtypes are specialized by the number of
+ * dependencies so that the common arities hold their dependencies in fields and avoid allocating an
+ * argument array for each call.
+ *
+ * <p>Instances are only created by {@link #create}. The constructor is package-private and every
+ * subtype is private so the class cannot be extended outside this package.
+ */
+public abstract class LinkedProvidesBinding<T> extends LinkedBinding<T> {
+  static <T> LinkedProvidesBinding<T> create(
+      Method method, Invoker invoker, LinkedBinding<?>[] dependencies) {
+    switch (dependencies.length) {
+      case 0:
+        return new Arity0<>(method, invoker);
+      case 1:
+        return new Arity1<>(method, invoker, dependencies[0]);
+      case 2:
+        return new Arity2<>(method, invoker, dependencies[0], dependencies[1]);
+      case 3:
+        return new Arity3<>(method, invoker, dependencies[0], dependencies[1], dependencies[2]);
+      case 4:
+        return new Arity4<>(
+            method, invoker, dependencies[0], dependencies[1], dependencies[2], dependencies[3]);
+      default:
+        return new ArityN<>(method, invoker, dependencies);
+    }
+  }
+
   private final Method method;
-  private final LinkedBinding<?>[] dependencies;
+  final Invoker invoker;
 
-  LinkedProvidesBinding(@Nullable Object instance, Method method, LinkedBinding<?>[] dependencies) {
-    this.instance = instance;
+  LinkedProvidesBinding(Method method, Invoker invoker) {
     this.method = method;
-    this.dependencies = dependencies;
+    this.invoker = invoker;
   }
 
   @Override
-  public @Nullable T get() {
-    Object[] arguments = new Object[dependencies.length];
-    for (int i = 0; i < arguments.length; i++) {
-      arguments[i] = dependencies[i].get();
+  public String toString() {
+    return "@Provides[" + method.getDeclaringClass().getName() + '.' + method.getName() + "(…)]";
+  }
+
+  // The binding is associated with the return type of method as key, so the unchecked casts of the
+  // invoker's results in each subtype are safe.
+
+  private static final class Arity0<T> extends LinkedProvidesBinding<T> {
+    Arity0(Method method, Invoker invoker) {
+      super(method, invoker);
     }
-    // The binding is associated with the return type of method as key.
+
     @SuppressWarnings("unchecked")
-    T value = (T) tryInvoke(instance, method, arguments);
-    return value;
+    @Override
+    public @Nullable T get() {
+      return (T) invoker.invoke();
+    }
   }
 
-  @Override
-  public String toString() {
-    return "@Provides[" + method.getDeclaringClass().getName() + '.' + method.getName() + "(…)]";
+  private static final class Arity1<T> extends LinkedProvidesBinding<T> {
+    private final LinkedBinding<?> dependency0;
+
+    Arity1(Method method, Invoker invoker, LinkedBinding<?> dependency0) {
+      super(method, invoker);
+      this.dependency0 = dependency0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable T get() {
+      return (T) invoker.invoke(dependency0.get());
+    }
+  }
+
+  private static final class Arity2<T> extends LinkedProvidesBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+
+    Arity2(
+        Method method,
+        Invoker invoker,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1) {
+      super(method, invoker);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable T get() {
+      return (T) invoker.invoke(dependency0.get(), dependency1.get());
+    }
+  }
+
+  private static final class Arity3<T> extends LinkedProvidesBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+    private final LinkedBinding<?> dependency2;
+
+    Arity3(
+        Method method,
+        Invoker invoker,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1,
+        LinkedBinding<?> dependency2) {
+      super(method, invoker);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+      this.dependency2 = dependency2;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable T get() {
+      return (T) invoker.invoke(dependency0.get(), dependency1.get(), dependency2.get());
+    }
+  }
+
+  private static final class Arity4<T> extends LinkedProvidesBinding<T> {
+    private final LinkedBinding<?> dependency0;
+    private final LinkedBinding<?> dependency1;
+    private final LinkedBinding<?> dependency2;
+    private final LinkedBinding<?> dependency3;
+
+    Arity4(
+        Method method,
+        Invoker invoker,
+        LinkedBinding<?> dependency0,
+        LinkedBinding<?> dependency1,
+        LinkedBinding<?> dependency2,
+        LinkedBinding<?> dependency3) {
+      super(method, invoker);
+      this.dependency0 = dependency0;
+      this.dependency1 = dependency1;
+      this.dependency2 = dependency2;
+      this.dependency3 = dependency3;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable T get() {
+      return (T)
+          invoker.invoke(
+              dependency0.get(), dependency1.get(), dependency2.get(), dependency3.get());
+    }
+  }
+
+  private static final class ArityN<T> extends LinkedProvidesBinding<T> {
+    private final LinkedBinding<?>[] dependencies;
+
+    ArityN(Method method, Invoker invoker, LinkedBinding<?>[] dependencies) {
+      super(method, invoker);
+      this.dependencies = dependencies;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public @Nullable T get() {
+      Object[] arguments = new Object[dependencies.length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = dependencies[i].get();
+      }
+      return (T) invoker.invokeWithArguments(arguments);
+    }
   }
 }
@@ -1,25 +1,39 @@
 package dagger.reflect;
 
 import dagger.reflect.Binding.LinkedBinding;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.jetbrains.annotations.Nullable;
 
 final class LinkedScopedBinding<T> extends LinkedBinding<T> {
+  @SuppressWarnings("rawtypes") // Class literals cannot be parameterized.
+  private static final AtomicReferenceFieldUpdater<LinkedScopedBinding, Object> INSTANCE =
+      AtomicReferenceFieldUpdater.newUpdater(LinkedScopedBinding.class, Object.class, "instance");
+
   private final LinkedBinding<T> binding;
+  private final Key key;
+  /** True to initialize {@link #instance} with {@link ScopedInstance} rather than a monitor. */
+  private final boolean nonPinning = ScopedInstance.enabled();
   /**
    * The cached value produced from calling {@link #binding}. Is set to {@code this} to indicate an
-   * uninitialized value because the binding may produce null when called.
+   * uninitialized value because the binding may produce null when called. Holds a {@link
+   * ScopedInstance.Pending} while the value is being created if {@link #nonPinning}.
    */
   private volatile @Nullable Object instance = this;
 
-  LinkedScopedBinding(LinkedBinding<T> binding) {
+  LinkedScopedBinding(LinkedBinding<T> binding, Key key) {
     this.binding = binding;
+    this.key = key;
   }
 
   @SuppressWarnings("unchecked") // Instance will only be of type T at the point of cast.
   @Override
   public @Nullable T get() {
     Object instance = this.instance;
-    if (instance == this) {
+    if (nonPinning) {
+      if (instance == this || instance instanceof ScopedInstance.Pending) {
+        instance = ScopedInstance.initialize(this, INSTANCE, binding, key);
+      }
+    } else if (instance == this) {
       synchronized (this) {
         instance = this.instance;
         if (instance == this) {
@@ -4,6 +4,8 @@ import dagger.reflect.Binding.LinkedBinding;
 import dagger.reflect.Binding.UnlinkedBinding;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import org.jetbrains.annotations.Nullable;
 
 final class Linker {
@@ -38,6 +40,65 @@ final class Linker {
     return linkedBinding;
   }
 
+  /**
+   * A binding being linked by one thread. Other threads which need the same binding wait for it
+   * rather than repeating the work, unless the owner is, directly or through other links, waiting
+   * for them. Those threads link the binding themselves instead so that mutually dependent keys
+   * cannot deadlock and dependency cycles are still reported by the linker which finds them.
+   */
+  static final class InFlight {
+    /** Waits which would pass through more links than this are assumed to form a deadlock. */
+    private static final int MAX_WAIT_CHAIN = 64;
+    /** The link which each waiting thread is waiting for. */
+    private static final ConcurrentHashMap<Thread, InFlight> WAITING = new ConcurrentHashMap<>();
+
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private @Nullable LinkedBinding<?> result;
+
+    /** Publish the result of linking, or null if it failed, and release waiting threads. */
+    void complete(@Nullable LinkedBinding<?> result) {
+      this.result = result;
+      done.countDown();
+    }
+
+    /**
+     * Wait for the owner to finish linking and return its result. Returns null without waiting if
+     * that could deadlock, or if linking failed or the wait was interrupted, in which case the
+     * caller should link the binding itself.
+     */
+    @Nullable
+    LinkedBinding<?> await() {
+      Thread current = Thread.currentThread();
+      // Published before checking the owners so that of two threads about to wait for each other,
+      // at least one sees the other and does not wait.
+      WAITING.put(current, this);
+      try {
+        if (waitsFor(current)) {
+          return null;
+        }
+        done.await();
+        return result;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } finally {
+        WAITING.remove(current);
+      }
+    }
+
+    private boolean waitsFor(Thread thread) {
+      InFlight link = this;
+      for (int i = 0; link != null; i++) {
+        if (link.owner == thread || i == MAX_WAIT_CHAIN) {
+          return true;
+        }
+        link = WAITING.get(link.owner);
+      }
+      return false;
+    }
+  }
+
   private RuntimeException failure(Key key, String reason, String cause) {
     StringBuilder builder = new StringBuilder(reason).append(" for ").append(key).append('\n');
     appendChain(builder);
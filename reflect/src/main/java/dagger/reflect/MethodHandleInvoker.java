@@ -0,0 +1,178 @@
+package dagger.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link Invoker} backed by a {@link MethodHandle} which has its receiver bound and its
+ * parameters and return type erased to {@code Object}. Unlike {@link Method#invoke}, unchecked
+ * exceptions thrown by the target are not wrapped so a throwing target costs only its own
+ * exception. Checked exceptions are wrapped in a {@link RuntimeException}, as by reflection.
+ *
+ * <p>The handle is held in an instance field, which HotSpot does not treat as a constant, so calls
+ * through it are not inlined into the caller and still cost an indirect call. Bindings whose calls
+ * should be as fast as direct calls use {@link InvocationStrategy#GENERATED}, which on Java 15 and
+ * newer implements them with {@link HiddenClassBindings hidden classes} that call each target
+ * directly.
+ */
+@IgnoreJRERequirement // Only created when java.lang.invoke is present at runtime.
+final class MethodHandleInvoker extends Invoker {
+  private static final MethodType SPREADER_TYPE =
+      MethodType.methodType(Object.class, Object[].class);
+
+  /** Returns null if a handle could not be created, in which case reflection should be used. */
+  static @Nullable Invoker tryCreate(@Nullable Object instance, Method method) {
+    MethodHandle handle = unreflect(method);
+    if (handle == null) {
+      return null;
+    }
+    if (!Modifier.isStatic(method.getModifiers())) {
+      handle = handle.bindTo(instance);
+    }
+    return new MethodHandleInvoker(handle, method, instance);
+  }
+
+  /** Returns null if a handle could not be created, in which case reflection should be used. */
+  static @Nullable Invoker tryCreateUnbound(Method method) {
+    MethodHandle handle = unreflect(method);
+    if (handle == null) {
+      return null;
+    }
+    return new MethodHandleInvoker(handle, method, null);
+  }
+
+  /** Returns null if a handle could not be created, in which case reflection should be used. */
+  static @Nullable Invoker tryCreate(Constructor<?> constructor) {
+    if (!constructor.isAccessible()) {
+      constructor.setAccessible(true);
+    }
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException ignored) {
+      return null;
+    }
+    return new MethodHandleInvoker(handle, constructor, null);
+  }
+
+  /** Returns null if a handle could not be created, in which case reflection should be used. */
+  static @Nullable Invoker tryCreateSetter(Field field) {
+    if (!field.isAccessible()) {
+      field.setAccessible(true);
+    }
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflectSetter(field);
+    } catch (IllegalAccessException ignored) {
+      return null;
+    }
+    return new MethodHandleInvoker(handle, field, null);
+  }
+
+  private static @Nullable MethodHandle unreflect(Method method) {
+    if (!method.isAccessible()) {
+      method.setAccessible(true);
+    }
+    try {
+      return MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException ignored) {
+      return null;
+    }
+  }
+
+  /** The target adapted to take and return {@code Object} for use by the fixed-arity calls. */
+  private final MethodHandle handle;
+  /** The target adapted to take a single {@code Object[]} of arguments. */
+  private final MethodHandle spreader;
+
+  private final Member member;
+  private final @Nullable Object instance;
+
+  private MethodHandleInvoker(MethodHandle target, Member member, @Nullable Object instance) {
+    int parameterCount = target.type().parameterCount();
+    this.handle = target.asType(MethodType.genericMethodType(parameterCount));
+    this.spreader = handle.asSpreader(Object[].class, parameterCount).asType(SPREADER_TYPE);
+    this.member = member;
+    this.instance = instance;
+  }
+
+  @Override
+  @Nullable
+  Object invokeWithArguments(Object[] arguments) {
+    try {
+      return (Object) spreader.invokeExact(arguments);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  @Nullable
+  Object invoke() {
+    try {
+      return (Object) handle.invokeExact();
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  @Nullable
+  Object invoke(@Nullable Object a) {
+    try {
+      return (Object) handle.invokeExact(a);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b) {
+    try {
+      return (Object) handle.invokeExact(a, b);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c) {
+    try {
+      return (Object) handle.invokeExact(a, b, c);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  @Override
+  @Nullable
+  Object invoke(@Nullable Object a, @Nullable Object b, @Nullable Object c, @Nullable Object d) {
+    try {
+      return (Object) handle.invokeExact(a, b, c, d);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /** Propagate unchecked exceptions from the target as-is and wrap checked ones. */
+  private RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    String target = member instanceof Method ? member + " on " + instance : member.toString();
+    return new RuntimeException("Unable to invoke " + target, t);
+  }
+}
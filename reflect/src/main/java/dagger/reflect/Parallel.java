@@ -0,0 +1,87 @@
+package dagger.reflect;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jetbrains.annotations.Nullable;
+
+/** Runs indexed tasks on an executor with the calling thread taking part. */
+final class Parallel {
+  interface Task {
+    void run(int index);
+  }
+
+  /**
+   * Returns the shared executor if the system property named {@code property} is {@code true}, or
+   * null otherwise. The property is read on each call so that changing it affects components
+   * created afterwards.
+   */
+  static @Nullable Executor executorFor(String property) {
+    return Boolean.getBoolean(property) ? SharedExecutor.INSTANCE : null;
+  }
+
+  /**
+   * Run {@code task} for each index from 0 until {@code count} on {@code executor} and on the
+   * calling thread, which waits for all of them to finish. The calling thread takes tasks as well
+   * so that progress does not depend on the executor having free threads. The first failure is
+   * rethrown once every task has finished.
+   */
+  static void forEach(Executor executor, int count, Task task) {
+    AtomicInteger nextIndex = new AtomicInteger();
+    CountDownLatch remaining = new CountDownLatch(count);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Runnable worker =
+        () -> {
+          int index;
+          while ((index = nextIndex.getAndIncrement()) < count) {
+            try {
+              task.run(index);
+            } catch (Throwable t) {
+              failure.compareAndSet(null, t);
+            } finally {
+              remaining.countDown();
+            }
+          }
+        };
+    for (int i = 1; i < count; i++) {
+      executor.execute(worker);
+    }
+    worker.run();
+
+    boolean interrupted = false;
+    while (true) {
+      try {
+        remaining.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    Throwable t = failure.get();
+    if (t instanceof RuntimeException) throw (RuntimeException) t;
+    if (t instanceof Error) throw (Error) t;
+    if (t != null) throw new RuntimeException(t);
+  }
+
+  /** Daemon threads shared by every opted-in feature. Created on first use. */
+  private static final class SharedExecutor {
+    static final Executor INSTANCE =
+        Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "dagger-reflect-parallel");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  private Parallel() {
+    throw new AssertionError();
+  }
+}
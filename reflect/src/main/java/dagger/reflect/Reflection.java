@@ -33,6 +33,37 @@ import javax.inject.Scope;
 import org.jetbrains.annotations.Nullable;
 
 final class Reflection {
+  private static final int QUALIFIER = 1;
+  private static final int SCOPE = 1 << 1;
+  private static final int MAP_KEY = 1 << 2;
+
+  /**
+   * The meta-annotations of each annotation type as a bitmask of {@link #QUALIFIER}, {@link
+   * #SCOPE}, and {@link #MAP_KEY}. Reading an annotation of a class synchronizes on its annotation
+   * data so this avoids it for the many annotations each linked binding inspects.
+   */
+  private static final ClassCache<Integer> ANNOTATION_KINDS =
+      ClassCache.create(Reflection::classifyAnnotation);
+
+  private static Integer classifyAnnotation(Class<?> annotationType) {
+    int kinds = 0;
+    if (annotationType.getAnnotation(Qualifier.class) != null) {
+      kinds |= QUALIFIER;
+    }
+    // Reusable is ignored since it is a best effort optimization and isn't a real scope.
+    if (annotationType.getAnnotation(Scope.class) != null && annotationType != Reusable.class) {
+      kinds |= SCOPE;
+    }
+    if (annotationType.getAnnotation(MapKey.class) != null) {
+      kinds |= MAP_KEY;
+    }
+    return kinds;
+  }
+
+  private static boolean is(Annotation annotation, int kind) {
+    return (ANNOTATION_KINDS.get(annotation.annotationType()) & kind) != 0;
+  }
+
   static @Nullable Class<?> findEnclosedAnnotatedClass(
       Class<?> cls, Class<? extends Annotation> annotationClass) {
     for (Class<?> declaredClass : cls.getDeclaredClasses()) {
@@ -46,7 +77,7 @@ final class Reflection {
   static @Nullable Annotation findQualifier(Annotation[] annotations) {
     Annotation qualifier = null;
     for (Annotation annotation : annotations) {
-      if (annotation.annotationType().getAnnotation(Qualifier.class) != null) {
+      if (is(annotation, QUALIFIER)) {
         if (qualifier != null) {
           throw new IllegalArgumentException(
               "Multiple qualifier annotations: " + qualifier + " and " + annotation);
@@ -79,11 +110,7 @@ final class Reflection {
   static Set<Annotation> findScopes(Annotation[] annotations) {
     Set<Annotation> scopes = null;
     for (Annotation annotation : annotations) {
-      // Reusable is ignored.
-      if (annotation.annotationType() == Reusable.class) {
-        continue;
-      }
-      if (annotation.annotationType().getAnnotation(Scope.class) != null) {
+      if (is(annotation, SCOPE)) {
         if (scopes == null) {
           scopes = new LinkedHashSet<>();
         }
@@ -96,7 +123,7 @@ final class Reflection {
   static @Nullable Annotation findMapKey(Annotation[] annotations) {
     Annotation key = null;
     for (Annotation annotation : annotations) {
-      if (annotation.annotationType().getAnnotation(MapKey.class) != null) {
+      if (is(annotation, MAP_KEY)) {
         if (key != null) {
           throw new IllegalArgumentException(
               "Multiple key annotations: " + key + " and " + annotation);
@@ -189,6 +216,20 @@ final class Reflection {
     }
   }
 
+  /**
+   * True if any of {@code exceptionTypes} is a checked exception. Callers which do not wrap what
+   * their target throws must only be used for targets which return false.
+   */
+  static boolean hasCheckedException(Class<?>[] exceptionTypes) {
+    for (Class<?> exceptionType : exceptionTypes) {
+      if (!RuntimeException.class.isAssignableFrom(exceptionType)
+          && !Error.class.isAssignableFrom(exceptionType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Try to create an instance of {@code cls} using a default constructor. Returns null if no
    * default constructor found.
@@ -2,8 +2,10 @@ package dagger.reflect;
 
 import dagger.MembersInjector;
 import dagger.android.AndroidInjector;
+import dagger.reflect.ComponentScopeBuilder.Template;
 import java.lang.annotation.Annotation;
 import java.util.Set;
+import org.jetbrains.annotations.Nullable;
 
 final class ReflectiveAndroidInjector<T> implements AndroidInjector<T> {
   private final MembersInjector<T> membersInjector;
@@ -17,11 +19,18 @@ final class ReflectiveAndroidInjector<T> implements AndroidInjector<T> {
     membersInjector.injectMembers(instance);
   }
 
+  /**
+   * Creates an injector for each Android instance. The parts of its scope which are the same for
+   * every instance are prepared by the first call and reused, so later calls only parse the cached
+   * module declarations into a new scope and bind the instance.
+   */
   static final class Factory<T> implements AndroidInjector.Factory<T> {
     private final Scope parent;
     private final Class<?>[] moduleClasses;
     private final Class<T> instanceClass;
+    private final Key instanceKey;
     private final Set<Annotation> annotations;
+    private volatile @Nullable Template template;
 
     Factory(
         Scope parent,
@@ -31,15 +40,22 @@ final class ReflectiveAndroidInjector<T> implements AndroidInjector<T> {
       this.parent = parent;
       this.moduleClasses = moduleClasses;
       this.instanceClass = instanceClass;
+      this.instanceKey = Key.of(null, instanceClass);
       this.annotations = annotations;
     }
 
     @Override
     public AndroidInjector<T> create(T instance) {
+      Template template = this.template;
+      if (template == null) {
+        // Racing threads create equivalent templates so any of them can be kept.
+        template = Template.create(moduleClasses, new Class<?>[0], annotations);
+        this.template = template;
+      }
       Scope scope =
-          ComponentScopeBuilder.create(moduleClasses, new Class<?>[0], annotations, parent)
+          ComponentScopeBuilder.create(template, parent)
               .get()
-              .addInstance(Key.of(null, instanceClass), instance)
+              .addInstance(instanceKey, instance)
               .build();
 
       MembersInjector<T> membersInjector = ReflectiveMembersInjector.create(instanceClass, scope);
@@ -6,14 +6,26 @@ import dagger.reflect.Binding.LinkedBinding;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+/** Creates a binding for each provision method of a component dependency. */
 final class ReflectiveDependencyParser {
-  private static final LinkedBinding<?>[] NO_BINDINGS = new LinkedBinding<?>[0];
+  /** The provision methods of each dependency type, found once and shared by every component. */
+  private static final ClassCache<Provision[]> PROVISIONS =
+      ClassCache.create(ReflectiveDependencyParser::findProvisions);
 
   static void parse(Class<?> cls, Object instance, Scope.Builder scopeBuilder) {
+    for (Provision provision : PROVISIONS.get(cls)) {
+      scopeBuilder.addBinding(provision.key, createBinding(instance, provision));
+    }
+  }
+
+  private static Provision[] findProvisions(Class<?> cls) {
     Set<Key> alreadySeen = new LinkedHashSet<>();
+    List<Provision> provisions = new ArrayList<>();
     for (Class<?> target : Reflection.getDistinctTypeHierarchy(cls)) {
       for (Method method : target.getDeclaredMethods()) {
         if (method.getParameterTypes().length != 0 || method.getReturnType() == void.class) {
@@ -25,11 +37,32 @@ final class ReflectiveDependencyParser {
         Key key = Key.of(qualifier, type);
 
         if (alreadySeen.add(key)) {
-          Binding binding = new LinkedProvidesBinding<>(instance, method, NO_BINDINGS);
-          scopeBuilder.addBinding(key, binding);
+          provisions.add(new Provision(key, method));
         }
       }
     }
+    return provisions.toArray(new Provision[0]);
+  }
+
+  private static Binding createBinding(Object instance, Provision provision) {
+    Method method = provision.method;
+    if (Invoker.usesHiddenClasses()) {
+      LinkedBinding<?> binding = HiddenClassBindings.tryCreateDependencyProvision(instance, method);
+      if (binding != null) {
+        return binding;
+      }
+    }
+    return new LinkedDependencyProvisionBinding<>(instance, method);
+  }
+
+  private static final class Provision {
+    final Key key;
+    final Method method;
+
+    Provision(Key key, Method method) {
+      this.key = key;
+      this.method = method;
+    }
   }
 
   private ReflectiveDependencyParser() {
@@ -0,0 +1,91 @@
+package dagger.reflect;
+
+import static dagger.reflect.Reflection.tryInstantiate;
+import static dagger.reflect.Reflection.tryInvoke;
+import static dagger.reflect.Reflection.trySet;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import org.jetbrains.annotations.Nullable;
+
+/** An {@link Invoker} which uses core reflection for each call. */
+abstract class ReflectiveInvoker extends Invoker {
+  static final class ForMethod extends ReflectiveInvoker {
+    private final @Nullable Object instance;
+    private final Method method;
+
+    ForMethod(@Nullable Object instance, Method method) {
+      this.instance = instance;
+      this.method = method;
+    }
+
+    @Override
+    @Nullable
+    Object invokeWithArguments(Object[] arguments) {
+      return tryInvoke(instance, method, arguments);
+    }
+  }
+
+  static final class ForUnboundMethod extends ReflectiveInvoker {
+    private final Method method;
+
+    ForUnboundMethod(Method method) {
+      this.method = method;
+    }
+
+    @Override
+    @Nullable
+    Object invokeWithArguments(Object[] arguments) {
+      Object[] parameters = Arrays.copyOfRange(arguments, 1, arguments.length);
+      return tryInvoke(arguments[0], method, parameters);
+    }
+
+    @Override
+    @Nullable
+    Object invoke(@Nullable Object a) {
+      return tryInvoke(a, method, NO_ARGUMENTS);
+    }
+
+    @Override
+    @Nullable
+    Object invoke(@Nullable Object a, @Nullable Object b) {
+      return tryInvoke(a, method, b);
+    }
+  }
+
+  static final class ForFieldSetter extends ReflectiveInvoker {
+    private final Field field;
+
+    ForFieldSetter(Field field) {
+      this.field = field;
+    }
+
+    @Override
+    @Nullable
+    Object invokeWithArguments(Object[] arguments) {
+      return invoke(arguments[0], arguments[1]);
+    }
+
+    @Override
+    @Nullable
+    Object invoke(@Nullable Object a, @Nullable Object b) {
+      trySet(a, field, b);
+      return null;
+    }
+  }
+
+  static final class ForConstructor extends ReflectiveInvoker {
+    private final Constructor<?> constructor;
+
+    ForConstructor(Constructor<?> constructor) {
+      this.constructor = constructor;
+    }
+
+    @Override
+    Object invokeWithArguments(Object[] arguments) {
+      return tryInstantiate(constructor, arguments);
+    }
+  }
+}
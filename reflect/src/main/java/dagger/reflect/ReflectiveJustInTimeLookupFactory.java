@@ -9,7 +9,15 @@ import java.lang.reflect.Type;
 import javax.inject.Inject;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Creates bindings for classes with an {@code @Inject} constructor. What is found for each class,
+ * including that it has no such constructor, is cached globally so that repeated lookups of the
+ * same class from any component only reflect over it once.
+ */
 final class ReflectiveJustInTimeLookupFactory implements JustInTimeLookup.Factory {
+  private static final ClassCache<InjectConstructor<?>> INJECT_CONSTRUCTORS =
+      ClassCache.create(InjectConstructor::find);
+
   @Override
   public @Nullable JustInTimeLookup create(Key key) {
     if (key.qualifier() != null) {
@@ -17,34 +25,73 @@ final class ReflectiveJustInTimeLookupFactory implements JustInTimeLookup.Factor
     }
 
     Type type = key.type();
-    return getJustInTimeLookup(type);
-  }
-
-  private @Nullable <T> JustInTimeLookup getJustInTimeLookup(Type type) {
-    Class<T> cls;
-    Type[] typeArguments = null;
     if (type instanceof ParameterizedType) {
       // Assume that "representing the class or interface that declared this type" is a Class<?>.
-      @SuppressWarnings("unchecked")
-      Class<T> rawType = (Class<T>) ((ParameterizedType) type).getRawType();
-      cls = rawType;
-      typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+      Class<?> rawType = (Class<?>) ((ParameterizedType) type).getRawType();
+      Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+      return INJECT_CONSTRUCTORS.get(rawType).lookup(typeArguments);
     } else if (type instanceof Class<?>) {
-      @SuppressWarnings("unchecked")
-      Class<T> directClass = (Class<T>) type;
-      cls = directClass;
+      return INJECT_CONSTRUCTORS.get((Class<?>) type).lookup(null);
     } else {
       return null; // Array types can't be just-in-time satisfied.
     }
+  }
+
+  /**
+   * The {@code @Inject} constructor of a class and its scope. Lookups of the raw class share a
+   * single binding while each parameterization of a generic class gets its own.
+   */
+  private static final class InjectConstructor<T> {
+    static <T> InjectConstructor<T> find(Class<?> rawClass) {
+      @SuppressWarnings("unchecked") // Only used to tie the constructor's type to its class.
+      Class<T> cls = (Class<T>) rawClass;
+      try {
+        Constructor<T> constructor = findSingleInjectConstructor(cls);
+        Annotation scope = constructor != null ? findScope(cls.getAnnotations()) : null;
+        return new InjectConstructor<>(cls, constructor, scope, null);
+      } catch (IllegalStateException e) {
+        return new InjectConstructor<>(cls, null, null, e.getMessage());
+      }
+    }
+
+    private final Class<T> cls;
+    private final @Nullable Constructor<T> constructor;
+    private final @Nullable Annotation scope;
+    private final @Nullable String error;
+    /** The lookup for the raw class, or null if it does not have an {@code @Inject} constructor. */
+    private final @Nullable JustInTimeLookup rawLookup;
 
-    Constructor<T> target = findSingleInjectConstructor(cls);
-    if (target == null) {
-      return null; // Types without an @Inject constructor cannot be just-in-time satisfied.
+    private InjectConstructor(
+        Class<T> cls,
+        @Nullable Constructor<T> constructor,
+        @Nullable Annotation scope,
+        @Nullable String error) {
+      this.cls = cls;
+      this.constructor = constructor;
+      this.scope = scope;
+      this.error = error;
+      this.rawLookup =
+          constructor != null
+              ? new JustInTimeLookup(scope, new UnlinkedJustInTimeBinding<>(cls, constructor, null))
+              : null;
     }
 
-    Annotation scope = findScope(cls.getAnnotations());
-    Binding binding = new UnlinkedJustInTimeBinding<>(cls, target, typeArguments);
-    return new JustInTimeLookup(scope, binding);
+    @Nullable
+    JustInTimeLookup lookup(@Nullable Type[] typeArguments) {
+      String error = this.error;
+      if (error != null) {
+        throw new IllegalStateException(error);
+      }
+      Constructor<T> constructor = this.constructor;
+      if (constructor == null) {
+        return null; // Types without an @Inject constructor cannot be just-in-time satisfied.
+      }
+      if (typeArguments == null) {
+        return rawLookup;
+      }
+      return new JustInTimeLookup(
+          scope, new UnlinkedJustInTimeBinding<>(cls, constructor, typeArguments));
+    }
   }
 
   private static <T> @Nullable Constructor<T> findSingleInjectConstructor(Class<T> cls) {
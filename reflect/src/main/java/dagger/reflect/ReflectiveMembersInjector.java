@@ -16,8 +16,6 @@
 package dagger.reflect;
 
 import static dagger.reflect.Reflection.findQualifier;
-import static dagger.reflect.Reflection.tryInvoke;
-import static dagger.reflect.Reflection.trySet;
 
 import dagger.MembersInjector;
 import dagger.reflect.Binding.LinkedBinding;
@@ -27,17 +25,165 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 import javax.inject.Inject;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Injects the {@code @Inject} fields and methods of a class and its superclasses. Finding and
+ * validating those members, and resolving the keys they need, is done once per class and cached.
+ * Creating an injector for a scope only looks up the bindings for those keys.
+ */
 final class ReflectiveMembersInjector<T> implements MembersInjector<T> {
-  static <T> MembersInjector<T> create(Class<T> cls, Scope scope) {
-    Deque<ClassInjector<T>> classInjectors = new ArrayDeque<>();
-    Class<?> target = cls;
-    while (target != Object.class && target != null) {
-      Map<Field, LinkedBinding<?>> fieldBindings = new LinkedHashMap<>();
+  private static final LinkedBinding<?>[] NO_BINDINGS = new LinkedBinding<?>[0];
+  private static final ClassCache<InjectionPoints> INJECTION_POINTS =
+      ClassCache.create(InjectionPoints::forClass);
+
+  static <T> ReflectiveMembersInjector<T> create(Class<T> cls, Scope scope) {
+    // Each class is validated and has its bindings resolved walking up from cls so that errors are
+    // reported for subclasses first. Per JSR 330, superclass members are injected first so each
+    // class's members are prepended.
+    Deque<Invoker[]> classInvokers = new ArrayDeque<>();
+    Deque<LinkedBinding<?>[][]> classBindings = new ArrayDeque<>();
+    int memberCount = 0;
+    for (Class<?> target = cls; target != Object.class && target != null; ) {
+      InjectionPoints points = INJECTION_POINTS.get(target);
+      target = target.getSuperclass();
+      if (points == InjectionPoints.NONE) {
+        continue;
+      }
+      Key[] fieldKeys = points.fieldKeys;
+      Key[][] methodKeys = points.methodKeys;
+      List<LinkedBinding<?>[]> memberBindings = new ArrayList<>();
+      for (Key key : fieldKeys) {
+        memberBindings.add(new LinkedBinding<?>[] {scope.getBinding(key)});
+      }
+      for (Key[] keys : methodKeys) {
+        LinkedBinding<?>[] methodBindings = new LinkedBinding<?>[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+          methodBindings[i] = scope.getBinding(keys[i]);
+        }
+        memberBindings.add(methodBindings);
+      }
+
+      @Nullable MembersInjector<Object> generated = tryCreateGenerated(points, memberBindings);
+      if (generated != null) {
+        classInvokers.addFirst(new Invoker[] {new GeneratedInjectorInvoker(generated)});
+        classBindings.addFirst(new LinkedBinding<?>[][] {NO_BINDINGS});
+        memberCount += 1;
+      } else {
+        // Each field is set through an invoker which takes the instance and the value so that both
+        // member kinds share the same calling path.
+        Invoker[] invokers = new Invoker[memberBindings.size()];
+        int index = 0;
+        for (Field field : points.fields) {
+          invokers[index++] = Invoker.forFieldSetter(field);
+        }
+        for (Method method : points.methods) {
+          invokers[index++] = Invoker.forUnboundMethod(method);
+        }
+        classInvokers.addFirst(invokers);
+        classBindings.addFirst(memberBindings.toArray(new LinkedBinding<?>[0][]));
+        memberCount += invokers.length;
+      }
+    }
+
+    Invoker[] invokers = new Invoker[memberCount];
+    LinkedBinding<?>[][] bindings = new LinkedBinding<?>[memberCount][];
+    int index = 0;
+    for (Invoker[] members : classInvokers) {
+      System.arraycopy(members, 0, invokers, index, members.length);
+      index += members.length;
+    }
+    index = 0;
+    for (LinkedBinding<?>[][] members : classBindings) {
+      System.arraycopy(members, 0, bindings, index, members.length);
+      index += members.length;
+    }
+    return new ReflectiveMembersInjector<>(invokers, bindings);
+  }
+
+  /**
+   * Returns an injector implemented by a hidden class for the members in {@code points}, or null if
+   * the invocation strategy does not use them.
+   */
+  private static @Nullable MembersInjector<Object> tryCreateGenerated(
+      InjectionPoints points, List<LinkedBinding<?>[]> bindings) {
+    if (bindings.isEmpty() || !Invoker.usesHiddenClasses()) {
+      return null;
+    }
+    List<LinkedBinding<?>> dependencies = new ArrayList<>();
+    for (LinkedBinding<?>[] memberBindings : bindings) {
+      Collections.addAll(dependencies, memberBindings);
+    }
+    return HiddenClassBindings.tryCreateMembersInjector(
+        points.target, points.fields, points.methods, dependencies.toArray(NO_BINDINGS));
+  }
+
+  /**
+   * Invokers for each injected member in injection order. Field invokers take the instance and the
+   * value. Method invokers take the instance followed by the method's arguments. An invoker for a
+   * generated injector takes only the instance and injects every member declared by one class.
+   */
+  private final Invoker[] invokers;
+  /** The bindings which supply the arguments for the invoker at the same index. */
+  private final LinkedBinding<?>[][] bindings;
+
+  private ReflectiveMembersInjector(Invoker[] invokers, LinkedBinding<?>[][] bindings) {
+    this.invokers = invokers;
+    this.bindings = bindings;
+  }
+
+  /** True when there are no members to inject. */
+  boolean isEmpty() {
+    return invokers.length == 0;
+  }
+
+  @Override
+  public void injectMembers(T instance) {
+    Invoker[] invokers = this.invokers;
+    LinkedBinding<?>[][] bindings = this.bindings;
+    for (int i = 0; i < invokers.length; i++) {
+      Invoker invoker = invokers[i];
+      LinkedBinding<?>[] arguments = bindings[i];
+      switch (arguments.length) {
+        case 0:
+          invoker.invoke(instance);
+          break;
+        case 1:
+          invoker.invoke(instance, arguments[0].get());
+          break;
+        case 2:
+          invoker.invoke(instance, arguments[0].get(), arguments[1].get());
+          break;
+        case 3:
+          invoker.invoke(instance, arguments[0].get(), arguments[1].get(), arguments[2].get());
+          break;
+        default:
+          Object[] values = new Object[arguments.length + 1];
+          values[0] = instance;
+          for (int j = 0; j < arguments.length; j++) {
+            values[j + 1] = arguments[j].get();
+          }
+          invoker.invokeWithArguments(values);
+      }
+    }
+  }
+
+  /** The injected members declared by one class and the keys of the values they need. */
+  private static final class InjectionPoints {
+    /** Held for classes which declare no injected members. */
+    static final InjectionPoints NONE =
+        new InjectionPoints(Object.class, new Field[0], new Key[0], new Method[0], new Key[0][]);
+
+    /** Returns the injection points declared by {@code target}, or {@link #NONE}. */
+    static InjectionPoints forClass(Class<?> target) {
+      // Per JSR 330, fields are injected before methods.
+      List<Field> fields = new ArrayList<>();
+      List<Key> fieldKeys = new ArrayList<>();
       for (Field field : target.getDeclaredFields()) {
         if (field.getAnnotation(Inject.class) == null) {
           continue;
@@ -58,12 +204,12 @@ final class ReflectiveMembersInjector<T> implements MembersInjector<T> {
         }
 
         Key key = Key.of(findQualifier(field.getDeclaredAnnotations()), field.getGenericType());
-        LinkedBinding<?> binding = scope.getBinding(key);
-
-        fieldBindings.put(field, binding);
+        fields.add(field);
+        fieldKeys.add(key);
       }
 
-      Map<Method, LinkedBinding<?>[]> methodBindings = new LinkedHashMap<>();
+      List<Method> methods = new ArrayList<>();
+      List<Key[]> methodKeys = new ArrayList<>();
       for (Method method : target.getDeclaredMethods()) {
         if (method.getAnnotation(Inject.class) == null) {
           continue;
@@ -95,66 +241,65 @@ final class ReflectiveMembersInjector<T> implements MembersInjector<T> {
 
         Type[] parameterTypes = method.getGenericParameterTypes();
         Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-        LinkedBinding<?>[] bindings = new LinkedBinding<?>[parameterTypes.length];
+        Key[] keys = new Key[parameterTypes.length];
         for (int i = 0; i < parameterTypes.length; i++) {
-          Key key = Key.of(findQualifier(parameterAnnotations[i]), parameterTypes[i]);
-          bindings[i] = scope.getBinding(key);
+          keys[i] = Key.of(findQualifier(parameterAnnotations[i]), parameterTypes[i]);
         }
 
-        methodBindings.put(method, bindings);
+        methods.add(method);
+        methodKeys.add(keys);
       }
 
-      if (!fieldBindings.isEmpty() || !methodBindings.isEmpty()) {
-        // Per JSR 330, fields and methods in superclasses are injected before those in subclasses.
-        // We are traversing upward in the class hierarchy so each injector is prepended to the
-        // collection to ensure regular iteration will honor this contract.
-        classInjectors.addFirst(new ClassInjector<>(fieldBindings, methodBindings));
+      if (fields.isEmpty() && methods.isEmpty()) {
+        return NONE;
       }
-
-      target = target.getSuperclass();
+      return new InjectionPoints(
+          target,
+          fields.toArray(new Field[0]),
+          fieldKeys.toArray(new Key[0]),
+          methods.toArray(new Method[0]),
+          methodKeys.toArray(new Key[0][]));
     }
 
-    return new ReflectiveMembersInjector<>(classInjectors);
-  }
-
-  private final Iterable<ClassInjector<T>> classInjectors;
+    final Class<?> target;
+    final Field[] fields;
+    /** The key of the value for the field at the same index. */
+    final Key[] fieldKeys;
 
-  private ReflectiveMembersInjector(Iterable<ClassInjector<T>> classInjectors) {
-    this.classInjectors = classInjectors;
-  }
+    final Method[] methods;
+    /** The keys of the arguments for the method at the same index. */
+    final Key[][] methodKeys;
 
-  @Override
-  public void injectMembers(T instance) {
-    for (ClassInjector<T> classInjector : classInjectors) {
-      classInjector.injectMembers(instance);
+    private InjectionPoints(
+        Class<?> target, Field[] fields, Key[] fieldKeys, Method[] methods, Key[][] methodKeys) {
+      this.target = target;
+      this.fields = fields;
+      this.fieldKeys = fieldKeys;
+      this.methods = methods;
+      this.methodKeys = methodKeys;
     }
   }
 
-  private static final class ClassInjector<T> implements MembersInjector<T> {
-    final Map<Field, LinkedBinding<?>> fieldBindings;
-    final Map<Method, LinkedBinding<?>[]> methodBindings;
+  /** Injects all of the members declared by one class. Each call takes only the instance. */
+  private static final class GeneratedInjectorInvoker extends Invoker {
+    private final MembersInjector<Object> injector;
 
-    ClassInjector(
-        Map<Field, LinkedBinding<?>> fieldBindings,
-        Map<Method, LinkedBinding<?>[]> methodBindings) {
-      this.fieldBindings = fieldBindings;
-      this.methodBindings = methodBindings;
+    GeneratedInjectorInvoker(MembersInjector<Object> injector) {
+      this.injector = injector;
     }
 
     @Override
-    public void injectMembers(T instance) {
-      // Per JSR 330, fields are injected before methods.
-      for (Map.Entry<Field, LinkedBinding<?>> fieldBinding : fieldBindings.entrySet()) {
-        trySet(instance, fieldBinding.getKey(), fieldBinding.getValue().get());
-      }
-      for (Map.Entry<Method, LinkedBinding<?>[]> methodBinding : methodBindings.entrySet()) {
-        LinkedBinding<?>[] bindings = methodBinding.getValue();
-        Object[] arguments = new Object[bindings.length];
-        for (int i = 0; i < bindings.length; i++) {
-          arguments[i] = bindings[i].get();
-        }
-        tryInvoke(instance, methodBinding.getKey(), arguments);
-      }
+    @Nullable
+    Object invokeWithArguments(Object[] arguments) {
+      return invoke(arguments[0]);
+    }
+
+    @Override
+    @Nullable
+    Object invoke(@Nullable Object instance) {
+      assert instance != null;
+      injector.injectMembers(instance);
+      return null;
     }
   }
 }
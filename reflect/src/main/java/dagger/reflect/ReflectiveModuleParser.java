@@ -26,131 +26,155 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Contributes the bindings declared by a module to a scope. Each module class is only reflected
+ * over once. The result is cached as a list of {@link Declaration declarations} which are replayed
+ * into every scope which includes the module.
+ */
 final class ReflectiveModuleParser {
+  private static final Key[] NO_KEYS = new Key[0];
+  private static final ClassCache<Declaration[]> DECLARATIONS =
+      ClassCache.create(ReflectiveModuleParser::parseDeclarations);
+
   static void parse(Class<?> moduleClass, @Nullable Object instance, Scope.Builder scopeBuilder) {
-    for (Class<?> target : Reflection.getDistinctTypeHierarchy(moduleClass)) {
-      for (Method method : target.getDeclaredMethods()) {
-        Type returnType = method.getGenericReturnType();
-        Annotation[] annotations = method.getAnnotations();
-        Annotation qualifier = findQualifier(annotations);
-
-        if (Modifier.isAbstract(method.getModifiers())) {
-          if (method.getAnnotation(Binds.class) != null) {
-            Key key = Key.of(qualifier, returnType);
-            Binding binding = new UnlinkedBindsBinding(method);
-            addBinding(scopeBuilder, key, binding, annotations);
-          } else if (method.getAnnotation(BindsOptionalOf.class) != null) {
-            try {
-              Key key =
-                  Key.of(
-                      qualifier,
-                      new ParameterizedTypeImpl(null, Optional.class, boxIfNecessary(returnType)));
-              Binding binding = new UnlinkedJavaOptionalBinding(method);
-              addBinding(scopeBuilder, key, binding, annotations);
-            } catch (NoClassDefFoundError ignored) {
-            }
-            try {
-              Key key =
-                  Key.of(
-                      qualifier,
-                      new ParameterizedTypeImpl(
-                          null, com.google.common.base.Optional.class, boxIfNecessary(returnType)));
-              Binding binding = new UnlinkedGuavaOptionalBinding(method);
-              addBinding(scopeBuilder, key, binding, annotations);
-            } catch (NoClassDefFoundError ignored) {
-            }
-          } else if (method.getAnnotation(Multibinds.class) != null) {
-            Key key = Key.of(qualifier, returnType);
-            if (method.getReturnType() == Set.class) {
-              scopeBuilder.createSetBinding(key);
-            } else if (method.getReturnType() == Map.class) {
-              scopeBuilder.createMapBinding(key);
-            } else {
-              throw new IllegalStateException(
-                  "@Multibinds return type must be Set or Map: " + returnType);
-            }
-          } else {
-            ContributesAndroidInjector contributesAndroidInjector =
-                method.getAnnotation(ContributesAndroidInjector.class);
-            if (contributesAndroidInjector != null) {
-              // TODO check return type is a supported type? not parameterized? something else?
-              Class<?>[] modules = contributesAndroidInjector.modules();
-              Class<?> androidType = (Class<?>) returnType;
-              Binding.UnlinkedBinding binding =
-                  new UnlinkedAndroidInjectorFactoryBinding(
-                      modules, androidType, findScopes(annotations));
-              addAndroidMapBinding(scopeBuilder, returnType, binding);
-            }
-          }
-        } else {
-          if (method.getAnnotation(Provides.class) != null) {
-            ensureNotPrivate(method);
-            if (!Modifier.isStatic(method.getModifiers()) && instance == null) {
-              ensureNotAbstract(moduleClass);
-              // Try to just-in-time create an instance of the module using a default constructor.
-              instance = maybeInstantiate(moduleClass);
-              if (instance == null) {
-                throw new IllegalStateException(moduleClass.getCanonicalName() + " must be set");
-              }
-            }
+    ModuleInstance moduleInstance = new ModuleInstance(moduleClass, instance);
+    for (Declaration declaration : DECLARATIONS.get(moduleClass)) {
+      declaration.addTo(scopeBuilder, moduleInstance);
+    }
+  }
 
-            Key key = Key.of(qualifier, returnType);
-            Binding binding = new UnlinkedProvidesBinding(instance, method);
-            addBinding(scopeBuilder, key, binding, annotations);
+  /**
+   * Reflect over each of {@code moduleClasses} in parallel on {@code executor} so that later calls
+   * to {@link #parse} find their declarations cached. Failures are ignored here. They happen again
+   * when the module is parsed, which reports them in module order like a sequential parse.
+   */
+  static void prepare(Class<?>[] moduleClasses, Executor executor) {
+    Parallel.forEach(
+        executor,
+        moduleClasses.length,
+        index -> {
+          try {
+            DECLARATIONS.get(moduleClasses[index]);
+          } catch (RuntimeException | Error ignored) {
+            // Rethrown by parse().
           }
+        });
+  }
+
+  private static Declaration[] parseDeclarations(Class<?> moduleClass) {
+    List<Declaration> declarations = new ArrayList<>();
+    for (Class<?> target : Reflection.getDistinctTypeHierarchy(moduleClass)) {
+      BindingIndex index = BindingIndex.get(target);
+      if (index == null) {
+        for (Method method : target.getDeclaredMethods()) {
+          parseMethod(method, declarations);
+        }
+        continue;
+      }
+      // Only the binding methods are looked up and reflected over. Other methods, including
+      // synthetic ones, are never loaded.
+      for (BindingIndex.Entry entry : index.entries) {
+        Method method = entry.findMethod(target);
+        String rawType = entry.rawType;
+        if (rawType != null && entry.isLazy()) {
+          declarations.add(new LazyDeclaration(rawType, method));
+        } else {
+          parseMethod(method, declarations);
         }
       }
     }
+    return declarations.toArray(new Declaration[0]);
   }
 
-  private static void addBinding(
-      Scope.Builder scopeBuilder, Key key, Binding binding, Annotation[] annotations) {
-    Annotation scope = findScope(annotations);
-    if (scope != null) {
-      if (!scopeBuilder.annotations.contains(scope)) {
-        throw new IllegalStateException(
-            "[Dagger/IncompatiblyScopedBindings] "
-                // TODO clarify which "(sub)component" failed
-                // (method when UnlinkedAndroidInjectorFactoryBinding is being created)
-                // ([sub]componentClass in when calling ComponentScopeBuilder is calling create)
-                + "(sub)component scoped with "
-                + scopeBuilder.annotations
-                + " may not reference bindings with different scopes:\n"
-                + "@"
-                + scope.annotationType().getCanonicalName()
-                + " "
-                + binding);
+  private static void parseMethod(Method method, List<Declaration> declarations) {
+    Type returnType = method.getGenericReturnType();
+    Annotation[] annotations = method.getAnnotations();
+    Annotation qualifier = findQualifier(annotations);
+
+    if (Modifier.isAbstract(method.getModifiers())) {
+      if (method.getAnnotation(Binds.class) != null) {
+        Key key = Key.of(qualifier, returnType);
+        declarations.add(
+            bindingDeclaration(key, method, BindingDeclaration.Source.BINDS, annotations));
+      } else if (method.getAnnotation(BindsOptionalOf.class) != null) {
+        try {
+          Key key =
+              Key.of(
+                  qualifier,
+                  new ParameterizedTypeImpl(null, Optional.class, boxIfNecessary(returnType)));
+          declarations.add(
+              bindingDeclaration(
+                  key, method, BindingDeclaration.Source.JAVA_OPTIONAL, annotations));
+        } catch (NoClassDefFoundError ignored) {
+        }
+        try {
+          Key key =
+              Key.of(
+                  qualifier,
+                  new ParameterizedTypeImpl(
+                      null, com.google.common.base.Optional.class, boxIfNecessary(returnType)));
+          declarations.add(
+              bindingDeclaration(
+                  key, method, BindingDeclaration.Source.GUAVA_OPTIONAL, annotations));
+        } catch (NoClassDefFoundError ignored) {
+        }
+      } else if (method.getAnnotation(Multibinds.class) != null) {
+        Key key = Key.of(qualifier, returnType);
+        if (method.getReturnType() != Set.class && method.getReturnType() != Map.class) {
+          throw new IllegalStateException(
+              "@Multibinds return type must be Set or Map: " + returnType);
+        }
+        declarations.add(new MultibindsDeclaration(key));
       } else {
-        binding = binding.asScoped();
+        ContributesAndroidInjector contributesAndroidInjector =
+            method.getAnnotation(ContributesAndroidInjector.class);
+        if (contributesAndroidInjector != null) {
+          // TODO check return type is a supported type? not parameterized? something else?
+          Class<?>[] modules = contributesAndroidInjector.modules();
+          Class<?> androidType = (Class<?>) returnType;
+          declarations.add(
+              new AndroidInjectorDeclaration(modules, androidType, findScopes(annotations)));
+        }
       }
-    }
-
-    if (findAnnotation(annotations, IntoSet.class) != null) {
-      addSetBinding(scopeBuilder, key, binding);
-    } else if (findAnnotation(annotations, ElementsIntoSet.class) != null) {
-      addSetElementsBinding(scopeBuilder, key, binding);
-    } else if (findAnnotation(annotations, IntoMap.class) != null) {
-      addMapBinding(scopeBuilder, key, binding, annotations);
     } else {
-      scopeBuilder.addBinding(key, binding);
+      if (method.getAnnotation(Provides.class) != null) {
+        ensureNotPrivate(method);
+        Key key = Key.of(qualifier, returnType);
+        declarations.add(
+            bindingDeclaration(key, method, BindingDeclaration.Source.PROVIDES, annotations));
+      }
     }
   }
 
-  private static void addSetBinding(
-      Scope.Builder scopeBuilder, Key elementKey, Binding elementBinding) {
-    Key key =
-        Key.of(
-            elementKey.qualifier(), new ParameterizedTypeImpl(null, Set.class, elementKey.type()));
-    scopeBuilder.addBindingIntoSet(key, elementBinding);
+  private static BindingDeclaration bindingDeclaration(
+      Key key, Method method, BindingDeclaration.Source source, Annotation[] annotations) {
+    Annotation scope = findScope(annotations);
+    if (findAnnotation(annotations, IntoSet.class) != null) {
+      Key setKey = Key.of(key.qualifier(), new ParameterizedTypeImpl(null, Set.class, key.type()));
+      return new BindingDeclaration(
+          setKey, method, source, scope, BindingDeclaration.Contribution.INTO_SET, null);
+    }
+    if (findAnnotation(annotations, ElementsIntoSet.class) != null) {
+      ensureSetElements(key);
+      return new BindingDeclaration(
+          key, method, source, scope, BindingDeclaration.Contribution.ELEMENTS_INTO_SET, null);
+    }
+    if (findAnnotation(annotations, IntoMap.class) != null) {
+      return mapBindingDeclaration(key, method, source, scope, annotations);
+    }
+    return new BindingDeclaration(
+        key, method, source, scope, BindingDeclaration.Contribution.UNIQUE, null);
   }
 
-  private static void addSetElementsBinding(
-      Scope.Builder scopeBuilder, Key setKey, Binding elementsBinding) {
+  private static void ensureSetElements(Key setKey) {
     if (Types.getRawType(setKey.type()) != Set.class) {
       throw new IllegalArgumentException(
           "@BindsIntoSet must return Set. Found " + setKey.type() + ".");
@@ -161,30 +185,13 @@ final class ReflectiveModuleParser {
               + setKey.type()
               + ".");
     }
-    scopeBuilder.addBindingElementsIntoSet(setKey, elementsBinding);
-  }
-
-  private static void addAndroidMapBinding(
-      Scope.Builder scopeBuilder, Type returnType, Binding entryValueBinding) {
-    TypeUtil.WildcardTypeImpl wildcardType =
-        new TypeUtil.WildcardTypeImpl(new Type[] {Object.class}, null);
-    Type classType = new ParameterizedTypeImpl(null, Class.class, wildcardType);
-    Type injectorFactoryType =
-        new ParameterizedTypeImpl(
-            AndroidInjector.class, AndroidInjector.Factory.class, wildcardType);
-
-    Key key =
-        Key.of(null, new ParameterizedTypeImpl(null, Map.class, classType, injectorFactoryType));
-    Key string =
-        Key.of(null, new ParameterizedTypeImpl(null, Map.class, String.class, injectorFactoryType));
-    scopeBuilder.addBindingIntoMap(key, returnType, entryValueBinding);
-    scopeBuilder.addBindingIntoMap(string, returnType, entryValueBinding);
   }
 
-  private static void addMapBinding(
-      Scope.Builder scopeBuilder,
+  private static BindingDeclaration mapBindingDeclaration(
       Key entryValueKey,
-      Binding entryValueBinding,
+      Method method,
+      BindingDeclaration.Source source,
+      @Nullable Annotation scope,
       Annotation[] annotations) {
     Annotation entryKeyAnnotation = findMapKey(annotations);
     if (entryKeyAnnotation == null) {
@@ -201,10 +208,10 @@ final class ReflectiveModuleParser {
       if (methods.length != 1) {
         throw new IllegalStateException(); // TODO key annotations can only have a single method
       }
-      Method method = methods[0];
+      Method keyMethod = methods[0];
 
-      entryKeyType = boxIfNecessary(method.getGenericReturnType());
-      entryKey = Reflection.tryInvoke(entryKeyAnnotation, method);
+      entryKeyType = boxIfNecessary(keyMethod.getGenericReturnType());
+      entryKey = Reflection.tryInvoke(entryKeyAnnotation, keyMethod);
       if (entryKey == null) {
         throw new AssertionError(); // Not allowed by the Java language specification.
       }
@@ -217,7 +224,8 @@ final class ReflectiveModuleParser {
         Key.of(
             entryValueKey.qualifier(),
             new ParameterizedTypeImpl(null, Map.class, entryKeyType, entryValueKey.type()));
-    scopeBuilder.addBindingIntoMap(key, entryKey, entryValueBinding);
+    return new BindingDeclaration(
+        key, method, source, scope, BindingDeclaration.Contribution.INTO_MAP, entryKey);
   }
 
   private static void ensureNotPrivate(Method method) {
@@ -226,12 +234,287 @@ final class ReflectiveModuleParser {
     }
   }
 
-  private static void ensureNotAbstract(Class<?> moduleClass) {
-    if (Modifier.isAbstract(moduleClass.getModifiers())) {
-      throw new IllegalStateException(
-          moduleClass.getCanonicalName()
-              + " is abstract and has instance @Provides methods."
-              + " Consider making the methods static or including a non-abstract subclass of the module instead.");
+  /** The module instance for one scope, created on demand if the module was not supplied. */
+  private static final class ModuleInstance {
+    private final Class<?> moduleClass;
+    private @Nullable Object instance;
+
+    ModuleInstance(Class<?> moduleClass, @Nullable Object instance) {
+      this.moduleClass = moduleClass;
+      this.instance = instance;
+    }
+
+    Object get() {
+      Object instance = this.instance;
+      if (instance == null) {
+        ensureNotAbstract(moduleClass);
+        // Try to just-in-time create an instance of the module using a default constructor.
+        instance = maybeInstantiate(moduleClass);
+        if (instance == null) {
+          throw new IllegalStateException(moduleClass.getCanonicalName() + " must be set");
+        }
+        this.instance = instance;
+      }
+      return instance;
+    }
+
+    private static void ensureNotAbstract(Class<?> moduleClass) {
+      if (Modifier.isAbstract(moduleClass.getModifiers())) {
+        throw new IllegalStateException(
+            moduleClass.getCanonicalName()
+                + " is abstract and has instance @Provides methods."
+                + " Consider making the methods static or including a non-abstract subclass of the module instead.");
+      }
+    }
+  }
+
+  /** The result of reflecting over one module method. Immutable and shared by every scope. */
+  private abstract static class Declaration {
+    abstract void addTo(Scope.Builder scopeBuilder, ModuleInstance instance);
+  }
+
+  private static final class BindingDeclaration extends Declaration {
+    enum Source {
+      BINDS,
+      JAVA_OPTIONAL,
+      GUAVA_OPTIONAL,
+      PROVIDES
     }
+
+    enum Contribution {
+      UNIQUE,
+      INTO_SET,
+      ELEMENTS_INTO_SET,
+      INTO_MAP
+    }
+
+    private final Key key;
+    private final Method method;
+    private final Source source;
+    private final @Nullable Annotation scope;
+    private final Contribution contribution;
+    private final @Nullable Object entryKey;
+    /** The keys of a {@code @Provides} method's parameters. Empty for other sources. */
+    private final Key[] dependencyKeys;
+    /**
+     * The binding used by every module instance, or null if it captures the module instance.
+     * Unlinked bindings are only a recipe for linking so they can be shared between components.
+     */
+    private final @Nullable Binding sharedBinding;
+
+    BindingDeclaration(
+        Key key,
+        Method method,
+        Source source,
+        @Nullable Annotation scope,
+        Contribution contribution,
+        @Nullable Object entryKey) {
+      this.key = key;
+      this.method = method;
+      this.source = source;
+      this.scope = scope;
+      this.contribution = contribution;
+      this.entryKey = entryKey;
+      this.dependencyKeys =
+          source == Source.PROVIDES ? UnlinkedProvidesBinding.dependencyKeys(method) : NO_KEYS;
+      this.sharedBinding =
+          source != Source.PROVIDES || Modifier.isStatic(method.getModifiers())
+              ? createBinding(null)
+              : null;
+    }
+
+    @Override
+    void addTo(Scope.Builder scopeBuilder, ModuleInstance instance) {
+      Object moduleInstance = sharedBinding == null ? instance.get() : null;
+      Binding binding = binding(scopeBuilder.annotations, moduleInstance);
+
+      switch (contribution) {
+        case UNIQUE:
+          scopeBuilder.addBinding(key, binding);
+          break;
+        case INTO_SET:
+          scopeBuilder.addBindingIntoSet(key, binding);
+          break;
+        case ELEMENTS_INTO_SET:
+          scopeBuilder.addBindingElementsIntoSet(key, binding);
+          break;
+        case INTO_MAP:
+          Object entryKey = this.entryKey;
+          assert entryKey != null; // Always set for map contributions.
+          scopeBuilder.addBindingIntoMap(key, entryKey, binding);
+          break;
+        default:
+          throw new AssertionError(contribution);
+      }
+    }
+
+    /**
+     * Returns the binding for a scope with {@code scopeAnnotations}. {@code moduleInstance} is only
+     * used when the binding captures it.
+     */
+    Binding binding(Set<Annotation> scopeAnnotations, @Nullable Object moduleInstance) {
+      Binding binding = sharedBinding;
+      if (binding == null) {
+        binding = createBinding(moduleInstance);
+      }
+
+      Annotation scope = this.scope;
+      if (scope != null) {
+        if (!scopeAnnotations.contains(scope)) {
+          throw new IllegalStateException(
+              "[Dagger/IncompatiblyScopedBindings] "
+                  // TODO clarify which "(sub)component" failed
+                  // (method when UnlinkedAndroidInjectorFactoryBinding is being created)
+                  // ([sub]componentClass in when calling ComponentScopeBuilder is calling create)
+                  + "(sub)component scoped with "
+                  + scopeAnnotations
+                  + " may not reference bindings with different scopes:\n"
+                  + "@"
+                  + scope.annotationType().getCanonicalName()
+                  + " "
+                  + binding);
+        }
+        binding = binding.asScoped(key);
+      }
+      return binding;
+    }
+
+    private Binding createBinding(@Nullable Object moduleInstance) {
+      switch (source) {
+        case BINDS:
+          return new UnlinkedBindsBinding(method);
+        case JAVA_OPTIONAL:
+          return new UnlinkedJavaOptionalBinding(method);
+        case GUAVA_OPTIONAL:
+          return new UnlinkedGuavaOptionalBinding(method);
+        case PROVIDES:
+          return new UnlinkedProvidesBinding(moduleInstance, method, dependencyKeys);
+        default:
+          throw new AssertionError(source);
+      }
+    }
+  }
+
+  /**
+   * A unique, unscoped binding method listed in its module's {@link BindingIndex}. Only the raw
+   * type of its key is known until a key with that raw type is requested, at which point the method
+   * is reflected over once and the result is shared like any other declaration.
+   */
+  private static final class LazyDeclaration extends Declaration {
+    private final String rawType;
+    private final Method method;
+    private volatile @Nullable BindingDeclaration declaration;
+
+    LazyDeclaration(String rawType, Method method) {
+      this.rawType = rawType;
+      this.method = method;
+    }
+
+    @Override
+    void addTo(Scope.Builder scopeBuilder, ModuleInstance instance) {
+      // Resolve the module instance now so that a missing one fails the component like it would
+      // for an eagerly-parsed method. This also keeps ModuleInstance confined to this thread.
+      Object moduleInstance =
+          Modifier.isAbstract(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+              ? null
+              : instance.get();
+      scopeBuilder.addLazyBinding(
+          rawType,
+          new Scope.LazyBinding() {
+            @Override
+            public Key key() {
+              return declaration().key;
+            }
+
+            @Override
+            public Binding binding(Set<Annotation> scopeAnnotations) {
+              return declaration().binding(scopeAnnotations, moduleInstance);
+            }
+          });
+    }
+
+    private BindingDeclaration declaration() {
+      BindingDeclaration declaration = this.declaration;
+      if (declaration == null) {
+        // Racing threads reflect over the method more than once but produce equivalent results.
+        List<Declaration> declarations = new ArrayList<>(1);
+        parseMethod(method, declarations);
+        declaration = declarations.size() == 1 ? asIndexed(declarations.get(0)) : null;
+        if (declaration == null) {
+          throw new IllegalStateException(
+              "Binding index for "
+                  + method.getDeclaringClass().getName()
+                  + " is out of date. Recompile the module with reflect-compiler: "
+                  + method);
+        }
+        this.declaration = declaration;
+      }
+      return declaration;
+    }
+
+    /** Returns {@code declaration} if it is what the index described, or null. */
+    private @Nullable BindingDeclaration asIndexed(Declaration declaration) {
+      if (!(declaration instanceof BindingDeclaration)) {
+        return null;
+      }
+      BindingDeclaration bindingDeclaration = (BindingDeclaration) declaration;
+      if (bindingDeclaration.contribution != BindingDeclaration.Contribution.UNIQUE
+          || !Types.getRawType(bindingDeclaration.key.type()).getName().equals(rawType)) {
+        return null;
+      }
+      return bindingDeclaration;
+    }
+  }
+
+  private static final class MultibindsDeclaration extends Declaration {
+    private final Key key;
+
+    MultibindsDeclaration(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    void addTo(Scope.Builder scopeBuilder, ModuleInstance instance) {
+      if (Types.getRawType(key.type()) == Set.class) {
+        scopeBuilder.createSetBinding(key);
+      } else {
+        scopeBuilder.createMapBinding(key);
+      }
+    }
+  }
+
+  private static final class AndroidInjectorDeclaration extends Declaration {
+    private final Class<?> androidType;
+    private final Key classKey;
+    private final Key stringKey;
+    /** Each scope links its own factory from this binding so it can be shared. */
+    private final Binding binding;
+
+    AndroidInjectorDeclaration(Class<?>[] modules, Class<?> androidType, Set<Annotation> scopes) {
+      this.androidType = androidType;
+      this.binding = new UnlinkedAndroidInjectorFactoryBinding(modules, androidType, scopes);
+
+      TypeUtil.WildcardTypeImpl wildcardType =
+          new TypeUtil.WildcardTypeImpl(new Type[] {Object.class}, null);
+      Type classType = new ParameterizedTypeImpl(null, Class.class, wildcardType);
+      Type injectorFactoryType =
+          new ParameterizedTypeImpl(
+              AndroidInjector.class, AndroidInjector.Factory.class, wildcardType);
+      classKey =
+          Key.of(null, new ParameterizedTypeImpl(null, Map.class, classType, injectorFactoryType));
+      stringKey =
+          Key.of(
+              null, new ParameterizedTypeImpl(null, Map.class, String.class, injectorFactoryType));
+    }
+
+    @Override
+    void addTo(Scope.Builder scopeBuilder, ModuleInstance instance) {
+      scopeBuilder.addBindingIntoMap(classKey, androidType, binding);
+      scopeBuilder.addBindingIntoMap(stringKey, androidType, binding);
+    }
+  }
+
+  private ReflectiveModuleParser() {
+    throw new AssertionError();
   }
 }
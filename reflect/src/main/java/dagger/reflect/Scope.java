@@ -8,31 +8,130 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Provider;
 import org.jetbrains.annotations.Nullable;
 
 final class Scope {
+  /**
+   * A binding which is only reflected over when a key with its raw type is first requested. The raw
+   * type is known up front from an index generated at compile time.
+   */
+  interface LazyBinding {
+    Key key();
+
+    Binding binding(Set<Annotation> scopeAnnotations);
+  }
+
+  /**
+   * {@link #unsealed} is merged into {@link #sealed} once this many lookups, or the size of the
+   * current table if larger, have been answered by {@link #bindings} instead. The cost of merging
+   * is then proportional to the lookups which caused it.
+   */
+  private static final int SEAL_THRESHOLD = 32;
+
+  /**
+   * Every binding in this scope. Linked bindings are never replaced so any {@link #sealed} copy of
+   * them stays valid, and bindings added after sealing are found here.
+   */
   private final ConcurrentHashMap<Key, Binding> bindings;
+
+  /**
+   * A snapshot of the linked bindings which is checked before {@link #bindings}. A thread which
+   * reads a stale table falls back to the map so this field does not need to be volatile.
+   */
+  private @Nullable BindingTable sealed;
+
+  /** Lookups answered by {@link #bindings} since the last seal. Updated without synchronization. */
+  private int unsealedHits;
+
+  /**
+   * Bindings which were linked, added, or looked up in {@link #bindings} since the last seal. Only
+   * these are merged into the next {@link #sealed} table, so unlinked declarations are never
+   * copied.
+   */
+  private final ConcurrentHashMap<Key, LinkedBinding<?>> unsealed = new ConcurrentHashMap<>();
+
+  /** Lazy bindings keyed by the binary name of their raw type, or null if there are none. */
+  private final @Nullable Map<String, LazyBinding[]> lazyBindings;
+  /** Raw types from {@link #lazyBindings} whose bindings have been added to {@link #bindings}. */
+  private final @Nullable Set<String> materializedTypes;
+
   private final List<JustInTimeLookup.Factory> jitLookupFactories;
   /** The annotations denoting {@linkplain javax.inject.Scope scoped} bindings for this instance. */
   private final Set<Annotation> annotations;
 
   private final @Nullable Scope parent;
 
+  /**
+   * The nearest scope, this one or an ancestor, with each scope annotation. Scoped just-in-time
+   * bindings are placed using this index instead of by walking the parent chain.
+   */
+  private final Map<Annotation, Scope> scopesByAnnotation;
+
+  /**
+   * The bindings found by lookups which reached the parent chain, or a {@link Miss} for keys that
+   * no ancestor had. Only used once this scope has children so that their lookups stop here rather
+   * than walking the rest of the chain. Null for a root scope.
+   */
+  private final @Nullable ConcurrentHashMap<Key, Object> ancestorResolutions;
+
+  /** Set before the first child of this scope is created. */
+  private volatile boolean hasChildren;
+
+  /**
+   * Shared by every scope in a hierarchy and incremented whenever a just-in-time binding is added
+   * to a scope with children. A {@link Miss} recorded before the latest increment may be stale.
+   */
+  private final AtomicInteger jitGeneration;
+
+  /** Keys whose unlinked binding is being linked by a thread, so others can wait for it. */
+  private final ConcurrentHashMap<Key, Linker.InFlight> inFlightLinks = new ConcurrentHashMap<>();
+
   private Scope(
       ConcurrentHashMap<Key, Binding> bindings,
+      @Nullable Map<String, LazyBinding[]> lazyBindings,
+      @Nullable Set<String> materializedTypes,
       List<JustInTimeLookup.Factory> jitLookupFactories,
       Set<Annotation> annotations,
       @Nullable Scope parent) {
     this.bindings = bindings;
+    this.lazyBindings = lazyBindings;
+    this.materializedTypes = materializedTypes;
     this.jitLookupFactories = jitLookupFactories;
     this.annotations = annotations;
     this.parent = parent;
+    this.scopesByAnnotation = indexScopes(annotations, parent);
+    if (parent != null) {
+      ancestorResolutions = new ConcurrentHashMap<>();
+      jitGeneration = parent.jitGeneration;
+      if (!parent.hasChildren) {
+        parent.hasChildren = true;
+      }
+    } else {
+      ancestorResolutions = null;
+      jitGeneration = new AtomicInteger();
+    }
+  }
+
+  private Map<Annotation, Scope> indexScopes(Set<Annotation> annotations, @Nullable Scope parent) {
+    if (annotations.isEmpty()) {
+      return parent != null ? parent.scopesByAnnotation : Collections.emptyMap();
+    }
+    Map<Annotation, Scope> scopes =
+        parent != null ? new HashMap<>(parent.scopesByAnnotation) : new HashMap<>();
+    for (Annotation annotation : annotations) {
+      scopes.put(annotation, this);
+    }
+    return scopes;
   }
 
   @Override
@@ -61,13 +160,8 @@ final class Scope {
     if (keyType instanceof ParameterizedType) {
       ParameterizedType parameterizedKeyType = (ParameterizedType) keyType;
       Type rawKeyType = parameterizedKeyType.getRawType();
-      if (rawKeyType == Provider.class) {
-        Key realKey = Key.of(key.qualifier(), parameterizedKeyType.getActualTypeArguments()[0]);
-        return new LinkedProviderBinding<>(this, realKey);
-      }
-      if (rawKeyType == Lazy.class) {
-        Key realKey = Key.of(key.qualifier(), parameterizedKeyType.getActualTypeArguments()[0]);
-        return new LinkedLazyBinding<>(this, realKey);
+      if (rawKeyType == Provider.class || rawKeyType == Lazy.class) {
+        return findFrameworkBinding(key, parameterizedKeyType);
       }
     }
 
@@ -91,6 +185,33 @@ final class Scope {
     return null;
   }
 
+  /**
+   * Returns the binding for a {@code Provider<T>} or {@code Lazy<T>} key. These resolve {@code T}
+   * against this scope when first called, not when linked, so that they can break dependency
+   * cycles. They are kept in this scope's {@link #bindings} so that each is only created once.
+   */
+  private LinkedBinding<?> findFrameworkBinding(Key key, ParameterizedType keyType) {
+    BindingTable sealed = this.sealed;
+    if (sealed != null) {
+      LinkedBinding<?> binding = sealed.get(key);
+      if (binding != null) {
+        return binding;
+      }
+    }
+    Binding existing = bindings.get(key);
+    if (existing != null) {
+      recordUnsealedHit(key, (LinkedBinding<?>) existing);
+      return (LinkedBinding<?>) existing;
+    }
+    Key realKey = Key.of(key.qualifier(), keyType.getActualTypeArguments()[0]);
+    LinkedBinding<?> binding =
+        keyType.getRawType() == Provider.class
+            ? new LinkedProviderBinding<>(this, realKey)
+            : new LinkedLazyBinding<>(this, realKey);
+    Binding race = bindings.putIfAbsent(key, binding);
+    return race != null ? (LinkedBinding<?>) race : binding;
+  }
+
   /**
    * Look for an existing linked binding for {@code key} in this scope or anywhere in the parent
    * scope chain. If an unlinked binding is found for the key, perform linking before returning it.
@@ -98,60 +219,248 @@ final class Scope {
    * @param linker An optional {@link Linker} to use. One will be created if null and needed.
    */
   private @Nullable LinkedBinding<?> findExistingBinding(Key key, @Nullable Linker linker) {
+    BindingTable sealed = this.sealed;
+    if (sealed != null) {
+      LinkedBinding<?> binding = sealed.get(key);
+      if (binding != null) {
+        return binding;
+      }
+    }
     Binding binding = bindings.get(key);
+    if (binding == null && lazyBindings != null) {
+      binding = findLazyBinding(key, lazyBindings);
+    }
     if (binding != null) {
-      return binding instanceof LinkedBinding<?>
-          ? (LinkedBinding<?>) binding
-          : link(key, linker, (UnlinkedBinding) binding);
+      if (binding instanceof LinkedBinding<?>) {
+        recordUnsealedHit(key, (LinkedBinding<?>) binding);
+        return (LinkedBinding<?>) binding;
+      }
+      return link(key, linker, (UnlinkedBinding) binding);
+    }
+
+    return parent != null ? findAncestorBinding(key, linker) : null;
+  }
+
+  /**
+   * Look for an existing linked binding for {@code key} in the parent scope chain. Scopes with
+   * children remember the result so that lookups from deep in a hierarchy make at most one hop
+   * before being answered, no matter how many ancestors there are.
+   */
+  private @Nullable LinkedBinding<?> findAncestorBinding(Key key, @Nullable Linker linker) {
+    Scope parent = this.parent;
+    ConcurrentHashMap<Key, Object> ancestorResolutions = this.ancestorResolutions;
+    assert parent != null && ancestorResolutions != null; // Always created alongside parent.
+    if (!hasChildren) {
+      return parent.findExistingBinding(key, linker);
+    }
+
+    Object resolution = ancestorResolutions.get(key);
+    if (resolution instanceof LinkedBinding<?>) {
+      return (LinkedBinding<?>) resolution;
+    }
+    // Read before walking so that a binding added during the walk invalidates the recorded miss.
+    int generation = jitGeneration.get();
+    if (resolution != null && ((Miss) resolution).generation == generation) {
+      return null;
     }
+    LinkedBinding<?> binding = parent.findExistingBinding(key, linker);
+    ancestorResolutions.put(key, binding != null ? binding : new Miss(generation));
+    return binding;
+  }
+
+  /** Recorded in {@link #ancestorResolutions} when no ancestor had a binding for a key. */
+  private static final class Miss {
+    final int generation;
+
+    Miss(int generation) {
+      this.generation = generation;
+    }
+  }
 
-    return parent != null ? parent.findExistingBinding(key, linker) : null;
+  private void recordUnsealedHit(Key key, LinkedBinding<?> binding) {
+    unsealed.put(key, binding);
+    BindingTable sealed = this.sealed;
+    int threshold = sealed != null ? Math.max(SEAL_THRESHOLD, sealed.size()) : SEAL_THRESHOLD;
+    if (++unsealedHits >= threshold) {
+      seal();
+    }
+  }
+
+  /**
+   * Merge the bindings recorded in {@link #unsealed} into an immutable table which is checked first
+   * by later lookups. Bindings which are unlinked or added later continue to be found in {@link
+   * #bindings}. Called automatically once enough lookups miss the table, and may be called again at
+   * any time.
+   */
+  void seal() {
+    unsealedHits = 0;
+    if (unsealed.isEmpty()) {
+      return;
+    }
+    BindingTable sealed = BindingTable.create(this.sealed, unsealed);
+    // Entries recorded while the table was created stay for the next seal.
+    for (Map.Entry<Key, LinkedBinding<?>> entry : unsealed.entrySet()) {
+      if (sealed.get(entry.getKey()) != null) {
+        unsealed.remove(entry.getKey());
+      }
+    }
+    this.sealed = sealed;
+  }
+
+  /**
+   * Add the lazy bindings which share the raw type of {@code key} to this scope, if not already
+   * added, and then return the binding for {@code key} if it was one of them.
+   */
+  private @Nullable Binding findLazyBinding(Key key, Map<String, LazyBinding[]> lazyBindings) {
+    String rawType = rawTypeName(key);
+    if (rawType == null) {
+      return null;
+    }
+    LazyBinding[] candidates = lazyBindings.get(rawType);
+    if (candidates == null) {
+      return null;
+    }
+    Set<String> materializedTypes = this.materializedTypes;
+    assert materializedTypes != null; // Always created alongside lazyBindings.
+    if (!materializedTypes.contains(rawType)) {
+      // Racing threads create equivalent bindings. The first of each to be added is kept.
+      for (Map.Entry<Key, Binding> entry : materialize(candidates, annotations).entrySet()) {
+        bindings.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+      materializedTypes.add(rawType);
+    }
+    return bindings.get(key);
+  }
+
+  private static Map<Key, Binding> materialize(
+      LazyBinding[] lazyBindings, Set<Annotation> annotations) {
+    Map<Key, Binding> bindings = new LinkedHashMap<>();
+    for (LazyBinding lazyBinding : lazyBindings) {
+      Key key = lazyBinding.key();
+      Binding binding = lazyBinding.binding(annotations);
+      Binding replaced = bindings.put(key, binding);
+      if (replaced != null) {
+        throw new IllegalStateException(
+            "Duplicate binding for " + key + ": " + replaced + " and " + binding);
+      }
+    }
+    return bindings;
+  }
+
+  private static boolean hasDuplicateKey(LazyBinding[] lazyBindings) {
+    Set<Key> keys = new HashSet<>();
+    for (LazyBinding lazyBinding : lazyBindings) {
+      if (!keys.add(lazyBinding.key())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The binary name of the raw type of {@code key} if it is a class or a parameterized class. */
+  private static @Nullable String rawTypeName(Key key) {
+    Type type = key.type();
+    if (type instanceof Class<?>) {
+      return ((Class<?>) type).getName();
+    }
+    if (type instanceof ParameterizedType) {
+      return ((Class<?>) ((ParameterizedType) type).getRawType()).getName();
+    }
+    return null;
   }
 
   /**
    * Attempt to insert a binding for {@code key} as a result of a just-in-time lookup.
    *
-   * <p>If {@code lookup} does not contain a scoping annotation or it contains a scoping annotation
-   * which matches the one for this scope, the binding will be inserted, linked, and returned.
-   * Otherwise, the parent scope (if any) will be recursively checked. If no matching scope
-   * annotation is found by traversing the parents null will be returned.
+   * <p>If {@code lookup} does not contain a scoping annotation the binding will be inserted into
+   * this scope, linked, and returned. Otherwise, it will be inserted into the nearest scope in the
+   * parent chain with a matching annotation. If no matching scope annotation is found null will be
+   * returned.
    */
   private @Nullable LinkedBinding<?> putJitBinding(
       Key key, @Nullable Linker linker, JustInTimeLookup lookup) {
     Binding jitBinding = lookup.binding;
+    Scope owner = this;
 
     Annotation scope = lookup.scope;
     if (scope != null) {
-      if (!annotations.contains(scope)) {
-        return parent != null ? parent.putJitBinding(key, linker, lookup) : null;
+      owner = scopesByAnnotation.get(scope);
+      if (owner == null) {
+        return null;
       }
 
-      jitBinding = jitBinding.asScoped();
+      jitBinding = jitBinding.asScoped(key);
+    }
+
+    LinkedBinding<?> binding = owner.insertJitBinding(key, linker, jitBinding);
+    if (owner != this && ancestorResolutions != null && hasChildren) {
+      ancestorResolutions.put(key, binding);
     }
+    return binding;
+  }
 
+  private LinkedBinding<?> insertJitBinding(Key key, @Nullable Linker linker, Binding jitBinding) {
     Binding replaced = bindings.putIfAbsent(key, jitBinding);
-    Binding binding =
-        replaced != null
-            ? replaced // You raced another thread and lost.
-            : jitBinding;
+    Binding binding;
+    if (replaced != null) {
+      binding = replaced; // You raced another thread and lost.
+    } else {
+      binding = jitBinding;
+      if (jitBinding instanceof LinkedBinding<?>) {
+        unsealed.put(key, (LinkedBinding<?>) jitBinding);
+      }
+      if (hasChildren) {
+        // Descendants may have recorded that no ancestor had a binding for this key.
+        jitGeneration.incrementAndGet();
+      }
+    }
 
     return binding instanceof LinkedBinding<?>
         ? (LinkedBinding<?>) binding
         : link(key, linker, (UnlinkedBinding) binding);
   }
 
+  /**
+   * Link {@code binding} and replace it in {@link #bindings}. Only one thread links a key at a time
+   * while the others wait for its result, unless waiting could deadlock.
+   */
   private LinkedBinding<?> link(Key key, @Nullable Linker linker, UnlinkedBinding binding) {
     if (linker == null) {
       linker = new Linker(this);
     }
-    LinkedBinding<?> linkedBinding = linker.link(key, binding);
 
+    Linker.InFlight inFlight = new Linker.InFlight();
+    Linker.InFlight existing = inFlightLinks.putIfAbsent(key, inFlight);
+    if (existing != null) {
+      LinkedBinding<?> linkedBinding = existing.await();
+      return linkedBinding != null
+          ? linkedBinding
+          : replace(key, binding, linker.link(key, binding));
+    }
+
+    LinkedBinding<?> linkedBinding = null;
+    try {
+      Binding current = bindings.get(key);
+      linkedBinding =
+          current instanceof LinkedBinding<?>
+              ? (LinkedBinding<?>) current // Linked by a thread which finished before we started.
+              : replace(key, binding, linker.link(key, binding));
+    } finally {
+      inFlightLinks.remove(key, inFlight);
+      inFlight.complete(linkedBinding);
+    }
+    return linkedBinding;
+  }
+
+  private LinkedBinding<?> replace(
+      Key key, UnlinkedBinding binding, LinkedBinding<?> linkedBinding) {
     if (!bindings.replace(key, binding, linkedBinding)) {
       // If replace() returned false we raced another thread and lost. Return the winner.
       LinkedBinding<?> race = (LinkedBinding<?>) bindings.get(key);
       if (race == null) throw new AssertionError();
       return race;
     }
+    unsealed.put(key, linkedBinding);
     return linkedBinding;
   }
 
@@ -162,6 +471,7 @@ final class Scope {
     private final Map<Key, SetBindings> keyToSetBindings = new LinkedHashMap<>();
     private final Map<Key, Map<Object, Binding>> keyToMapBindings = new LinkedHashMap<>();
     private final List<JustInTimeLookup.Factory> jitLookupFactories = new ArrayList<>();
+    private final Map<String, List<LazyBinding>> rawTypeToLazyBindings = new LinkedHashMap<>();
 
     Builder(@Nullable Scope parent, Set<Annotation> annotations) {
       if (!annotations.isEmpty() && parent != null) {
@@ -217,6 +527,25 @@ final class Scope {
       return this;
     }
 
+    /**
+     * Adds a binding which is only created when a key whose raw type has the binary name {@code
+     * rawType} is requested.
+     */
+    Builder addLazyBinding(String rawType, LazyBinding binding) {
+      if (rawType == null) throw new NullPointerException("rawType == null");
+      if (binding == null) throw new NullPointerException("binding == null");
+
+      List<LazyBinding> lazyBindings = rawTypeToLazyBindings.get(rawType);
+      //noinspection Java8MapApi Supporting old Android API levels.
+      if (lazyBindings == null) {
+        lazyBindings = new ArrayList<>();
+        rawTypeToLazyBindings.put(rawType, lazyBindings);
+      }
+      lazyBindings.add(binding);
+
+      return this;
+    }
+
     /**
      * Create an empty set binding specified by {@code key} if it does not already exist.
      *
@@ -398,7 +727,46 @@ final class Scope {
         }
       }
 
-      return new Scope(allBindings, jitLookupFactories, annotations, parent);
+      if (rawTypeToLazyBindings.isEmpty()) {
+        return new Scope(allBindings, null, null, jitLookupFactories, annotations, parent);
+      }
+
+      Map<String, LazyBinding[]> lazyBindings = new LinkedHashMap<>();
+      for (Map.Entry<String, List<LazyBinding>> entry : rawTypeToLazyBindings.entrySet()) {
+        lazyBindings.put(entry.getKey(), entry.getValue().toArray(new LazyBinding[0]));
+      }
+      Set<String> materializedTypes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+      // Lazy bindings whose raw type is shared with an eager binding are added now so that any
+      // duplicates are reported when the scope is created.
+      for (Key key : new ArrayList<>(allBindings.keySet())) {
+        String rawType = rawTypeName(key);
+        LazyBinding[] candidates = rawType != null ? lazyBindings.get(rawType) : null;
+        if (candidates != null && materializedTypes.add(rawType)) {
+          for (Map.Entry<Key, Binding> entry : materialize(candidates, annotations).entrySet()) {
+            Binding binding = entry.getValue();
+            Binding replaced = allBindings.put(entry.getKey(), binding);
+            if (replaced != null) {
+              throw new IllegalStateException(
+                  "Duplicate binding for " + entry.getKey() + ": " + replaced + " and " + binding);
+            }
+          }
+        }
+      }
+
+      // Lazy bindings which share a raw type, such as the same key in two modules, only have their
+      // keys compared so that duplicates among them are also reported when the scope is created.
+      for (Map.Entry<String, LazyBinding[]> entry : lazyBindings.entrySet()) {
+        LazyBinding[] candidates = entry.getValue();
+        if (candidates.length > 1
+            && !materializedTypes.contains(entry.getKey())
+            && hasDuplicateKey(candidates)) {
+          materialize(candidates, annotations); // Throws for the duplicate.
+        }
+      }
+
+      return new Scope(
+          allBindings, lazyBindings, materializedTypes, jitLookupFactories, annotations, parent);
     }
 
     private static final class SetBindings {
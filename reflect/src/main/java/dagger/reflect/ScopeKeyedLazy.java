@@ -1,34 +1,44 @@
 package dagger.reflect;
 
 import dagger.Lazy;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.jetbrains.annotations.Nullable;
 
 final class ScopeKeyedLazy<T> implements Lazy<T> {
-  private final Scope scope;
-  private final Key key;
+  @SuppressWarnings("rawtypes") // Class literals cannot be parameterized.
+  private static final AtomicReferenceFieldUpdater<ScopeKeyedLazy, Object> VALUE =
+      AtomicReferenceFieldUpdater.newUpdater(ScopeKeyedLazy.class, Object.class, "value");
+
+  private final ScopeKeyedProvider<T> provider;
+  /** True to initialize {@link #value} with {@link ScopedInstance} rather than a monitor. */
+  private final boolean nonPinning;
 
   /**
-   * The cached value produced from calling the binding returned by {@link #scope} for {@link #key}.
-   * Is set to {@code this} to indicate an uninitialized value because the binding may produce null
-   * when called.
+   * The cached value produced from calling {@link #provider}. Is set to {@code this} to indicate an
+   * uninitialized value because the binding may produce null when called. Holds a {@link
+   * ScopedInstance.Pending} while the value is being created if {@link #nonPinning}.
    */
   private volatile @Nullable Object value = this;
 
-  ScopeKeyedLazy(Scope scope, Key key) {
-    this.scope = scope;
-    this.key = key;
+  ScopeKeyedLazy(ScopeKeyedProvider<T> provider, boolean nonPinning) {
+    this.provider = provider;
+    this.nonPinning = nonPinning;
   }
 
-  @SuppressWarnings("unchecked") // We trust Scope to return correct binding.
+  @SuppressWarnings("unchecked") // Only a value from the provider remains at this point.
   @Override
   @Nullable
   public T get() {
     Object value = this.value;
-    if (value == this) {
+    if (nonPinning) {
+      if (value == this || value instanceof ScopedInstance.Pending) {
+        value = ScopedInstance.initialize(this, VALUE, provider, provider.key());
+      }
+    } else if (value == this) {
       synchronized (this) {
         value = this.value;
         if (value == this) {
-          value = this.value = scope.getBinding(key).get();
+          value = this.value = provider.get();
         }
       }
     }
@@ -7,18 +7,24 @@ import org.jetbrains.annotations.Nullable;
 final class ScopeKeyedProvider<T> implements Provider<T> {
   private final Scope scope;
   private final Key key;
-  private @Nullable LinkedBinding<T> binding;
+  /** Resolved on first use. Volatile because one instance is shared by every injection. */
+  private volatile @Nullable LinkedBinding<T> binding;
 
   ScopeKeyedProvider(Scope scope, Key key) {
     this.scope = scope;
     this.key = key;
   }
 
+  Key key() {
+    return key;
+  }
+
   @SuppressWarnings("unchecked") // We trust Scope to return correct binding.
   @Override
   public @Nullable T get() {
     LinkedBinding<T> binding = this.binding;
     if (binding == null) {
+      // Racing threads resolve the same binding from the scope.
       binding = this.binding = (LinkedBinding<T>) scope.getBinding(key);
     }
     return binding.get();
@@ -0,0 +1,92 @@
+package dagger.reflect;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.inject.Provider;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Initializes the instance of a scoped binding without holding a monitor. The thread which claims
+ * initialization publishes a {@link Pending} marker and other threads park on it until the value is
+ * published. Neither a virtual thread blocked in a slow binding nor the threads waiting for it pin
+ * their carrier threads.
+ *
+ * <p>The holder of the instance is also its uninitialized sentinel, since the binding may produce
+ * null. If the binding throws, the sentinel is restored and a waiting thread tries again.
+ *
+ * <p>This is only used when the {@code dagger.reflect.nonPinningScopes} system property is {@code
+ * true}. Otherwise scoped bindings initialize their instance while holding their own monitor.
+ */
+final class ScopedInstance {
+  /**
+   * True if scoped bindings linked now should use this class. The property is read on each call so
+   * that changing it affects bindings linked afterwards.
+   */
+  static boolean enabled() {
+    return Boolean.getBoolean("dagger.reflect.nonPinningScopes");
+  }
+
+  /**
+   * Return the instance held in {@code field} of {@code holder}, calling {@code provider} to create
+   * it if the field still holds {@code holder}. Throws if the thread creating the instance requests
+   * it again, which is the result of a dependency cycle on {@code key}.
+   */
+  static <H> @Nullable Object initialize(
+      H holder, AtomicReferenceFieldUpdater<H, Object> field, Provider<?> provider, Key key) {
+    while (true) {
+      Object instance = field.get(holder);
+      if (instance == holder) {
+        Pending pending = new Pending();
+        if (!field.compareAndSet(holder, holder, pending)) {
+          continue; // Another thread claimed initialization first.
+        }
+        Object result = holder;
+        try {
+          result = provider.get();
+          return result;
+        } finally {
+          // Restores the sentinel if the provider threw.
+          field.set(holder, result);
+          pending.done.countDown();
+        }
+      }
+      if (!(instance instanceof Pending)) {
+        return instance;
+      }
+      Pending pending = (Pending) instance;
+      if (pending.owner == Thread.currentThread()) {
+        throw new IllegalStateException(
+            "Scoped binding for "
+                + key
+                + " was requested while it was being created. "
+                + "This is likely due to a circular dependency.");
+      }
+      pending.await();
+    }
+  }
+
+  /** Held in place of the instance while one thread creates it. */
+  static final class Pending {
+    private final Thread owner = Thread.currentThread();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private void await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private ScopedInstance() {
+    throw new AssertionError();
+  }
+}
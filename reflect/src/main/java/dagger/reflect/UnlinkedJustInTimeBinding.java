@@ -2,7 +2,6 @@ package dagger.reflect;
 
 import static dagger.reflect.Reflection.findQualifier;
 
-import dagger.MembersInjector;
 import dagger.reflect.Binding.UnlinkedBinding;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
@@ -16,7 +15,12 @@ final class UnlinkedJustInTimeBinding<T> extends UnlinkedBinding {
   private final Class<T> cls;
   private final Constructor<T> constructor;
   // Type arguments might be used as types for this binding's parameterized constructor parameters.
-  private @Nullable Type[] concreteTypeArguments;
+  private final @Nullable Type[] concreteTypeArguments;
+  /**
+   * The keys of the constructor's parameters, resolved on first link. Bindings for classes without
+   * type arguments are shared by every scope so this is only computed once for them.
+   */
+  private volatile @Nullable Key[] dependencyKeys;
 
   UnlinkedJustInTimeBinding(
       Class<T> cls, Constructor<T> constructor, @Nullable Type[] concreteTypeArguments) {
@@ -27,20 +31,42 @@ final class UnlinkedJustInTimeBinding<T> extends UnlinkedBinding {
 
   @Override
   public LinkedBinding<?> link(Linker linker, Scope scope) {
+    Key[] dependencyKeys = this.dependencyKeys;
+    if (dependencyKeys == null) {
+      dependencyKeys = findDependencyKeys();
+      this.dependencyKeys = dependencyKeys;
+    }
+
+    LinkedBinding<?>[] bindings = new LinkedBinding<?>[dependencyKeys.length];
+    for (int i = 0; i < dependencyKeys.length; i++) {
+      bindings[i] = linker.get(dependencyKeys[i]);
+    }
+
+    ReflectiveMembersInjector<T> membersInjector = ReflectiveMembersInjector.create(cls, scope);
+
+    if (Invoker.usesHiddenClasses()) {
+      LinkedBinding<?> binding =
+          HiddenClassBindings.tryCreateJustInTime(
+              constructor, bindings, membersInjector, !membersInjector.isEmpty());
+      if (binding != null) {
+        return binding;
+      }
+    }
+    Invoker invoker = Invoker.forConstructor(constructor);
+    return LinkedJustInTimeBinding.create(constructor, invoker, bindings, membersInjector);
+  }
+
+  private Key[] findDependencyKeys() {
     Type[] parameterTypes = constructor.getGenericParameterTypes();
     Annotation[][] parameterAnnotations = constructor.getParameterAnnotations();
 
-    LinkedBinding<?>[] bindings = new LinkedBinding<?>[parameterTypes.length];
+    Key[] keys = new Key[parameterTypes.length];
     for (int i = 0; i < parameterTypes.length; i++) {
       Type parameterType = parameterTypes[i];
-      Key key =
+      keys[i] =
           Key.of(findQualifier(parameterAnnotations[i]), getTypeKeyForParameter(parameterType));
-      bindings[i] = linker.get(key);
     }
-
-    MembersInjector<T> membersInjector = ReflectiveMembersInjector.create(cls, scope);
-
-    return new LinkedJustInTimeBinding<>(constructor, bindings, membersInjector);
+    return keys;
   }
 
   private Type getTypeKeyForParameter(Type parameterType) {
@@ -10,22 +10,44 @@ import org.jetbrains.annotations.Nullable;
 final class UnlinkedProvidesBinding extends Binding.UnlinkedBinding {
   private final @Nullable Object instance;
   private final Method method;
+  private final Key[] dependencyKeys;
 
-  UnlinkedProvidesBinding(@Nullable Object instance, Method method) {
+  /**
+   * @param dependencyKeys The keys of {@code method}'s parameters as returned by {@link
+   *     #dependencyKeys}. They only depend on the method so can be shared by every binding for it.
+   */
+  UnlinkedProvidesBinding(@Nullable Object instance, Method method, Key[] dependencyKeys) {
     this.instance = instance;
     this.method = method;
+    this.dependencyKeys = dependencyKeys;
   }
 
-  @Override
-  public LinkedBinding<?> link(Linker linker, Scope scope) {
+  static Key[] dependencyKeys(Method method) {
     Type[] parameterTypes = method.getGenericParameterTypes();
     Annotation[][] parameterAnnotations = method.getParameterAnnotations();
-    LinkedBinding<?>[] dependencies = new LinkedBinding<?>[parameterTypes.length];
+    Key[] keys = new Key[parameterTypes.length];
     for (int i = 0; i < parameterTypes.length; i++) {
-      Key key = Key.of(findQualifier(parameterAnnotations[i]), parameterTypes[i]);
-      dependencies[i] = linker.get(key);
+      keys[i] = Key.of(findQualifier(parameterAnnotations[i]), parameterTypes[i]);
+    }
+    return keys;
+  }
+
+  @Override
+  public LinkedBinding<?> link(Linker linker, Scope scope) {
+    Key[] dependencyKeys = this.dependencyKeys;
+    LinkedBinding<?>[] dependencies = new LinkedBinding<?>[dependencyKeys.length];
+    for (int i = 0; i < dependencyKeys.length; i++) {
+      dependencies[i] = linker.get(dependencyKeys[i]);
+    }
+    if (Invoker.usesHiddenClasses()) {
+      LinkedBinding<?> binding =
+          HiddenClassBindings.tryCreateProvides(instance, method, dependencies);
+      if (binding != null) {
+        return binding;
+      }
     }
-    return new LinkedProvidesBinding<>(instance, method, dependencies);
+    Invoker invoker = Invoker.forMethod(instance, method);
+    return LinkedProvidesBinding.create(method, invoker, dependencies);
   }
 
   @Override
@@ -4,13 +4,15 @@ import dagger.reflect.Binding.UnlinkedBinding;
 
 final class UnlinkedScopedBinding extends UnlinkedBinding {
   private final UnlinkedBinding unlinkedBinding;
+  private final Key key;
 
-  UnlinkedScopedBinding(UnlinkedBinding unlinkedBinding) {
+  UnlinkedScopedBinding(UnlinkedBinding unlinkedBinding, Key key) {
     this.unlinkedBinding = unlinkedBinding;
+    this.key = key;
   }
 
   @Override
   public LinkedBinding<?> link(Linker linker, Scope scope) {
-    return new LinkedScopedBinding<>(unlinkedBinding.link(linker, scope));
+    return new LinkedScopedBinding<>(unlinkedBinding.link(linker, scope), key);
   }
 }